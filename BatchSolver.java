@@ -0,0 +1,398 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+// Headless Batch Solver
+// Streams puzzles in the common one-line format (81 characters, '0' or '.' for
+// blanks) from a file, solves them on a bounded worker pool and writes the
+// solutions in input order. Puzzles travel in fixed-size chunks of raw bytes
+// that are recycled once written, so neither parsing nor output allocates per
+// puzzle, and at most a few chunks per worker are ever in memory.
+//
+// With --mmap, the input and output files are memory-mapped instead (see
+// MappedPuzzleReader/MappedPuzzleWriter) and chunks carry only record offsets.
+//
+// Usage: java BatchSolver [--mmap] [--metrics <file.json>] [--max-nodes <n>]
+//                         [--timeout-ms <ms>] [--quarantine <file>] <input> <output> [threads]
+// Unsolvable puzzles are written as a line of '.' characters. --metrics writes
+// search statistics histograms for the batch (see SolverMetrics). With a node
+// budget or timeout, puzzles that exceed it are written as a line of '?'
+// characters and, with --quarantine, copied to a separate file for inspection,
+// so one adversarial input cannot hold a worker hostage.
+class BatchSolver {
+    private static final int CHUNK_PUZZLES = 1024;
+
+    private final int threads;
+    private final int recordLength;
+    private final ThreadLocal<BitmaskSolver> solvers;
+
+    private long puzzles;
+    private long unsolved;
+    private long overBudget;
+    private SolverMetrics metrics;
+    private SolveOptions options;
+    private OutputStream quarantine;
+
+    public BatchSolver(int threads) {
+        this(GridSpec.CLASSIC, threads);
+    }
+
+    public BatchSolver(GridSpec spec, int threads) {
+        this.threads = threads;
+        this.recordLength = spec.cells;
+        this.solvers = ThreadLocal.withInitial(() -> new BitmaskSolver(spec));
+    }
+
+    public long getPuzzles() {
+        return puzzles;
+    }
+
+    // Puzzles not solved for any reason, including those over budget
+    public long getUnsolved() {
+        return unsolved;
+    }
+
+    // Puzzles given up on because of the node budget or timeout
+    public long getOverBudget() {
+        return overBudget;
+    }
+
+    // Records per-puzzle search statistics and timings; null (the default) records nothing
+    public void setMetrics(SolverMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Per-puzzle timeout and node budget; null (the default) means unbounded
+    public void setOptions(SolveOptions options) {
+        this.options = options;
+    }
+
+    // Receives the input line of every puzzle that exceeded its budget
+    public void setQuarantine(OutputStream quarantine) {
+        this.quarantine = quarantine;
+    }
+
+    private SolveResult.Status solve(BitmaskSolver solver, Supplier<String> puzzle) {
+        long start = options != null || metrics != null ? System.nanoTime() : 0;
+        if (options != null) options.applyTo(solver, start);
+        boolean solved = solver.solve();
+        if (metrics != null) metrics.record(solver, System.nanoTime() - start, solved, puzzle);
+
+        if (solved) return SolveResult.Status.SOLVED;
+        return solver.isBudgetExceeded() ? SolveResult.Status.BUDGET_EXCEEDED : SolveResult.Status.UNSOLVABLE;
+    }
+
+    // Line written in place of a solution
+    private static byte marker(SolveResult.Status status) {
+        return (byte) (status == SolveResult.Status.BUDGET_EXCEEDED ? '?' : '.');
+    }
+
+    // A block of puzzles read back to back, solved in place and written out as lines
+    private class Chunk implements Callable<Chunk> {
+        final byte[] records = new byte[CHUNK_PUZZLES * recordLength];
+        final byte[] output = new byte[CHUNK_PUZZLES * (recordLength + 1)];
+        // Indexes of puzzles that exceeded the budget
+        final int[] exceeded = new int[CHUNK_PUZZLES];
+        int count;
+        int failed;
+        int exceededCount;
+
+        @Override
+        public Chunk call() {
+            BitmaskSolver solver = solvers.get();
+            failed = 0;
+            exceededCount = 0;
+            for (int i = 0; i < count; i++) {
+                int in = i * recordLength;
+                int out = i * (recordLength + 1);
+                SolveResult.Status status = !solver.load(records, in) ? SolveResult.Status.UNSOLVABLE
+                        : solve(solver, () -> new String(records, in, recordLength, StandardCharsets.US_ASCII));
+                if (status == SolveResult.Status.SOLVED) {
+                    solver.store(output, out);
+                } else {
+                    Arrays.fill(output, out, out + recordLength, marker(status));
+                    failed++;
+                    if (status == SolveResult.Status.BUDGET_EXCEEDED) exceeded[exceededCount++] = i;
+                }
+                output[out + recordLength] = '\n';
+            }
+            return this;
+        }
+    }
+
+    public void run(InputStream in, OutputStream out) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        RecordReader reader = new RecordReader(in, recordLength);
+        ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        ArrayDeque<Chunk> free = new ArrayDeque<>();
+        int window = 2 * threads;
+
+        try {
+            boolean more = true;
+            while (more || !inFlight.isEmpty()) {
+                // Keep the window full, then drain the oldest chunk to preserve input order
+                while (more && inFlight.size() < window) {
+                    Chunk chunk = free.isEmpty() ? new Chunk() : free.pop();
+                    chunk.count = 0;
+                    while (chunk.count < CHUNK_PUZZLES
+                            && reader.next(chunk.records, chunk.count * recordLength)) {
+                        chunk.count++;
+                    }
+                    more = chunk.count == CHUNK_PUZZLES;
+                    if (chunk.count > 0) {
+                        inFlight.add(pool.submit(chunk));
+                    } else {
+                        free.push(chunk);
+                    }
+                }
+                if (inFlight.isEmpty()) break;
+
+                Chunk done = await(inFlight.poll());
+                out.write(done.output, 0, done.count * (recordLength + 1));
+                puzzles += done.count;
+                unsolved += done.failed;
+                overBudget += done.exceededCount;
+                for (int i = 0; quarantine != null && i < done.exceededCount; i++) {
+                    quarantine.write(done.records, done.exceeded[i] * recordLength, recordLength);
+                    quarantine.write('\n');
+                }
+                free.push(done);
+            }
+            out.flush();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // A block of records decoded from and written to mapped windows by offset
+    private class MappedChunk implements Callable<MappedChunk> {
+        final int[] offsets = new int[CHUNK_PUZZLES];
+        ByteBuffer source;
+        ByteBuffer target;
+        int targetOffset;
+        final int[] exceeded = new int[CHUNK_PUZZLES];
+        int count;
+        int failed;
+        int exceededCount;
+
+        @Override
+        public MappedChunk call() {
+            BitmaskSolver solver = solvers.get();
+            failed = 0;
+            exceededCount = 0;
+            for (int i = 0; i < count; i++) {
+                int out = targetOffset + i * (recordLength + 1);
+                int at = offsets[i];
+                SolveResult.Status status = !solver.load(source, at) ? SolveResult.Status.UNSOLVABLE
+                        : solve(solver, () -> record(source, at));
+                if (status == SolveResult.Status.SOLVED) {
+                    solver.store(target, out);
+                } else {
+                    byte marker = marker(status);
+                    for (int k = 0; k < recordLength; k++) target.put(out + k, marker);
+                    failed++;
+                    if (status == SolveResult.Status.BUDGET_EXCEEDED) exceeded[exceededCount++] = at;
+                }
+                target.put(out + recordLength, (byte) '\n');
+            }
+            return this;
+        }
+    }
+
+    public void runMapped(Path input, Path output) throws IOException {
+        runMapped(input, output, MappedPuzzleReader.DEFAULT_WINDOW, CHUNK_PUZZLES * 1024L);
+    }
+
+    // Window sizes are parameters so a run can be made to cross many of them
+    void runMapped(Path input, Path output, long inputWindowBytes, long outputWindowRecords) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ArrayDeque<Future<MappedChunk>> inFlight = new ArrayDeque<>();
+        ArrayDeque<MappedChunk> free = new ArrayDeque<>();
+        int window = 2 * threads;
+
+        try (MappedPuzzleReader reader = new MappedPuzzleReader(input, recordLength, inputWindowBytes);
+             MappedPuzzleWriter writer = new MappedPuzzleWriter(output, recordLength, outputWindowRecords)) {
+            long written = 0;
+            boolean more = true;
+            while (more || !inFlight.isEmpty()) {
+                while (more && inFlight.size() < window) {
+                    MappedChunk chunk = free.isEmpty() ? new MappedChunk() : free.pop();
+                    chunk.count = 0;
+                    chunk.source = null;
+                    while (chunk.count < CHUNK_PUZZLES && reader.next()) {
+                        // A chunk must come from a single input window and go to a
+                        // single output window; splits at input windows leave the
+                        // chunks unaligned with output windows, so check both
+                        if (chunk.count > 0 && (chunk.source != reader.buffer()
+                                || writer.offset(written + chunk.count) == 0)) {
+                            submit(pool, inFlight, chunk, writer, written);
+                            written += chunk.count;
+                            chunk = free.isEmpty() ? new MappedChunk() : free.pop();
+                            chunk.count = 0;
+                        }
+                        chunk.source = reader.buffer();
+                        chunk.offsets[chunk.count++] = reader.offset();
+                    }
+                    more = chunk.count == CHUNK_PUZZLES;
+                    if (chunk.count > 0) {
+                        submit(pool, inFlight, chunk, writer, written);
+                        written += chunk.count;
+                    } else {
+                        free.push(chunk);
+                    }
+                }
+                if (inFlight.isEmpty()) break;
+
+                MappedChunk done = await(inFlight.poll());
+                puzzles += done.count;
+                unsolved += done.failed;
+                overBudget += done.exceededCount;
+                for (int i = 0; quarantine != null && i < done.exceededCount; i++) {
+                    quarantine.write(record(done.source, done.exceeded[i]).getBytes(StandardCharsets.US_ASCII));
+                    quarantine.write('\n');
+                }
+                done.source = null;
+                done.target = null;
+                free.push(done);
+            }
+            writer.commit(written);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void submit(ExecutorService pool, ArrayDeque<Future<MappedChunk>> inFlight,
+                        MappedChunk chunk, MappedPuzzleWriter writer, long firstRecord) throws IOException {
+        chunk.target = writer.buffer(firstRecord);
+        chunk.targetOffset = writer.offset(firstRecord);
+        inFlight.add(pool.submit(chunk));
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while solving");
+        } catch (ExecutionException e) {
+            throw new IOException("Solver failed", e.getCause());
+        }
+    }
+
+    // Reads one puzzle per line into a caller-supplied buffer, skipping blank lines
+    static class RecordReader {
+        private final InputStream in;
+        private final int recordLength;
+        private final byte[] buffer = new byte[1 << 16];
+        private int position;
+        private int limit;
+        private long line;
+
+        RecordReader(InputStream in, int recordLength) {
+            this.in = in;
+            this.recordLength = recordLength;
+        }
+
+        boolean next(byte[] dst, int offset) throws IOException {
+            int length = 0;
+            while (true) {
+                if (position == limit) {
+                    limit = in.read(buffer, 0, buffer.length);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        if (length == 0) return false;
+                        return checkLength(length);
+                    }
+                }
+                byte b = buffer[position++];
+                if (b == '\n') {
+                    line++;
+                    if (length > 0) return checkLength(length);
+                    continue;
+                }
+                if (b == '\r') continue;
+                if (length == recordLength) {
+                    throw new IOException("Line " + (line + 1) + ": expected " + recordLength + " characters");
+                }
+                dst[offset + length++] = b;
+            }
+        }
+
+        private boolean checkLength(int length) throws IOException {
+            if (length != recordLength) {
+                throw new IOException("Line " + (line + 1) + ": expected " + recordLength + " characters, got " + length);
+            }
+            return true;
+        }
+    }
+
+    private String record(ByteBuffer source, int offset) {
+        byte[] text = new byte[recordLength];
+        for (int k = 0; k < recordLength; k++) text[k] = source.get(offset + k);
+        return new String(text, StandardCharsets.US_ASCII);
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean mapped = false;
+        Path metricsFile = null;
+        Path quarantineFile = null;
+        SolveOptions options = null;
+        while (args.length > 0 && args[0].startsWith("--")) {
+            if (args[0].equals("--mmap")) {
+                mapped = true;
+                args = Arrays.copyOfRange(args, 1, args.length);
+                continue;
+            }
+            if (args.length < 2) break;
+            if (args[0].equals("--metrics")) {
+                metricsFile = Paths.get(args[1]);
+            } else if (args[0].equals("--quarantine")) {
+                quarantineFile = Paths.get(args[1]);
+            } else if (args[0].equals("--max-nodes")) {
+                options = (options != null ? options : SolveOptions.UNBOUNDED).withNodeBudget(Long.parseLong(args[1]));
+            } else if (args[0].equals("--timeout-ms")) {
+                options = (options != null ? options : SolveOptions.UNBOUNDED).withTimeout(Long.parseLong(args[1]));
+            } else {
+                break;
+            }
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+        if (args.length < 2) {
+            System.err.println("Usage: java BatchSolver [--mmap] [--metrics <file.json>] [--max-nodes <n>]"
+                    + " [--timeout-ms <ms>] [--quarantine <file>] <input> <output> [threads]");
+            System.exit(1);
+        }
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        BatchSolver batch = new BatchSolver(threads);
+        SolverMetrics metrics = metricsFile != null ? new SolverMetrics() : null;
+        batch.setMetrics(metrics);
+        batch.setOptions(options);
+        OutputStream quarantine = quarantineFile != null
+                ? new BufferedOutputStream(new FileOutputStream(quarantineFile.toFile())) : null;
+        batch.setQuarantine(quarantine);
+        long start = System.nanoTime();
+        if (mapped) {
+            batch.runMapped(Paths.get(args[0]), Paths.get(args[1]));
+        } else {
+            try (InputStream in = new FileInputStream(args[0]);
+                 OutputStream out = new BufferedOutputStream(new FileOutputStream(args[1]), 1 << 16)) {
+                batch.run(in, out);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (quarantine != null) quarantine.close();
+        System.err.printf("%d puzzles (%d unsolvable, %d over budget) in %.2fs: %.0f puzzles/sec on %d threads%n",
+                batch.getPuzzles(), batch.getUnsolved() - batch.getOverBudget(), batch.getOverBudget(),
+                seconds, batch.getPuzzles() / seconds, threads);
+        if (metrics != null) {
+            Files.write(metricsFile, metrics.toJson().getBytes(StandardCharsets.UTF_8));
+            System.err.println(metrics);
+        }
+    }
+}
@@ -0,0 +1,859 @@
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Bitmask Constraint Solver
+// Keeps an occupancy mask per row, column and box (one bit per digit, held in
+// a long so 16x16 and 25x25 boards fit too), updated on every place/unplace,
+// so the candidates of a cell are ~(row | col | box) instead of a rescan of
+// its row, column and box per digit.
+//
+// Three search strategies are available:
+// - ROW_MAJOR: branch on the next empty cell in reading order (the textbook way)
+// - MRV: propagate naked and hidden singles to a fixpoint, then branch on the
+//   empty cell with the fewest candidates
+// - RESTARTS: MRV with random tie-breaks and digit order, abandoned and rerun
+//   with fresh choices on a Luby schedule of node limits. Cuts off the heavy
+//   tail of unlucky first choices; seed it (setSeed) for reproducible runs.
+//
+// Every strategy runs in one loop over an explicit stack of branch frames
+// rather than by recursion: nothing is allocated per node, a 25x25 board
+// cannot overflow the thread stack, and a search can be paused, resumed and
+// snapshotted between nodes (begin/resume/pause/snapshot).
+//
+// setVectorized(true) moves the naked-single scan onto a CandidateKernel,
+// which computes every cell's candidates in one (SIMD, when available) pass.
+class BitmaskSolver {
+    enum Strategy { ROW_MAJOR, MRV, RESTARTS }
+
+    // Outcome of a stepwise search slice
+    enum Progress { SOLVED, EXHAUSTED, ABORTED, PAUSED }
+
+    private final GridSpec spec;
+    private final int size;
+    private final int cellCount;
+    private final long allDigits;
+    private final int[] rowOf;
+    private final int[] colOf;
+    private final int[] boxOf;
+    private final int[][] units;
+
+    private final int[] cells;
+    private final long[] rowMask;
+    private final long[] colMask;
+    private final long[] boxMask;
+
+    // Undo log of placed cells, so a failed branch can roll back its deductions
+    private final int[] trail;
+    private int trailSize;
+
+    // Search stack, one frame per branching node: trail length before the
+    // node's propagation and after it, branching cell, and digits not yet tried
+    private final int[] frameMark;
+    private final int[] frameBase;
+    private final int[] frameCell;
+    private final long[] frameUntried;
+    private int depth;
+    // The current position is a node still to be visited
+    private boolean descend;
+    private boolean rowMajor;
+    private boolean counting;
+    private long countLimit;
+    private long found;
+    // Trail length the search started from, and of the solution it stopped at
+    private int rootMark;
+    private int solutionMark = -1;
+    private boolean stepwise;
+    private long sliceEnd = Long.MAX_VALUE;
+    private volatile boolean pauseRequested;
+
+    // Stop flag, deadline and progress are only looked at every CHECK_MASK + 1 nodes
+    private static final int CHECK_MASK = 255;
+
+    private Strategy strategy = Strategy.MRV;
+    // RESTARTS: random source, and the node limit of a run of length 1
+    private SplittableRandom random;
+    private long restartUnit = 256;
+    // Non-null only while a RESTARTS search runs, so counting stays deterministic
+    private SplittableRandom shuffle;
+    private long runLimit = Long.MAX_VALUE;
+    private boolean restartDue;
+    private long restarts;
+    // Whole-board candidate pass for the naked-single scan, with int copies of
+    // the masks for it to read; null keeps the inline per-cell loop
+    private CandidateKernel kernel;
+    private int[] rowBits;
+    private int[] colBits;
+    private int[] boxBits;
+    private int[] kernelCandidates;
+    // Search statistics of the last solve: plain field increments, as cheap as
+    // the node count itself, read back by SolverMetrics
+    private long nodes;
+    private long backtracks;
+    private int maxDepth;
+    private long propagations;
+    private long candidateChecks;
+    // Shared flag other threads set to abandon this search (ParallelSolver, GUI cancel)
+    private AtomicBoolean stopFlag;
+    // The caller's own cancel flag, when stopFlag belongs to a ParallelSolver call
+    private AtomicBoolean cancelFlag;
+    private boolean hasDeadline;
+    private long deadline;
+    private long nodeBudget = Long.MAX_VALUE;
+    private boolean aborted;
+    private boolean budgetExceeded;
+    // Snapshot for progress displays on other threads
+    private volatile long progressNodes;
+    private volatile int progressDepth;
+
+    public BitmaskSolver() {
+        this(GridSpec.CLASSIC);
+    }
+
+    public BitmaskSolver(GridSpec spec) {
+        this.spec = spec;
+        this.size = spec.size;
+        this.cellCount = spec.cells;
+        this.allDigits = spec.allDigits;
+        this.rowOf = spec.rowOf;
+        this.colOf = spec.colOf;
+        this.boxOf = spec.boxOf;
+        this.units = spec.units;
+
+        cells = new int[cellCount];
+        rowMask = new long[size];
+        colMask = new long[size];
+        boxMask = new long[size];
+        trail = new int[cellCount];
+        frameMark = new int[cellCount + 1];
+        frameBase = new int[cellCount + 1];
+        frameCell = new int[cellCount + 1];
+        frameUntried = new long[cellCount + 1];
+    }
+
+    public GridSpec getSpec() {
+        return spec;
+    }
+
+    public void setStrategy(Strategy strategy) {
+        this.strategy = strategy;
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    // Runs the naked-single scan through CandidateKernel.forSpec(): SIMD lanes
+    // with --add-modules jdk.incubator.vector, a scalar pass otherwise. Boards
+    // whose digits do not fit an int lane keep the inline loop.
+    public void setVectorized(boolean enabled) {
+        useKernel(enabled && size <= CandidateKernel.MAX_SIZE ? CandidateKernel.forSpec(spec) : null);
+    }
+
+    // Random source for RESTARTS; without one each solve seeds itself
+    public void setSeed(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    void setRandom(SplittableRandom random) {
+        this.random = random;
+    }
+
+    // Nodes the shortest RESTARTS run may visit; run i gets luby(i) times this
+    public void setRestartUnit(long nodes) {
+        if (nodes <= 0) throw new IllegalArgumentException("Restart unit must be positive");
+        this.restartUnit = nodes;
+    }
+
+    // "inline", "scalar" or the vector shape in use, for benchmark reports
+    public String getCandidateKernel() {
+        return kernel == null ? "inline" : kernel.name();
+    }
+
+    private void useKernel(CandidateKernel kernel) {
+        this.kernel = kernel;
+        if (kernel != null && kernelCandidates == null) {
+            rowBits = new int[size];
+            colBits = new int[size];
+            boxBits = new int[size];
+            kernelCandidates = new int[cellCount];
+        }
+    }
+
+    // Search nodes visited by the last solve (one per branching decision)
+    public long getNodes() {
+        return nodes;
+    }
+
+    // Branches that failed and were undone
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    // Most cells placed beyond the givens at any one time
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    // Cells placed by naked/hidden single propagation rather than by branching
+    public long getPropagations() {
+        return propagations;
+    }
+
+    // Candidate masks computed while choosing cells and propagating
+    public long getCandidateChecks() {
+        return candidateChecks;
+    }
+
+    // Runs of a RESTARTS search abandoned at their node limit
+    public long getRestarts() {
+        return restarts;
+    }
+
+    private void resetStatistics() {
+        nodes = 0;
+        backtracks = 0;
+        maxDepth = 0;
+        propagations = 0;
+        candidateChecks = 0;
+        restarts = 0;
+        aborted = false;
+        budgetExceeded = false;
+    }
+
+    public void setStopFlag(AtomicBoolean stopFlag) {
+        this.stopFlag = stopFlag;
+    }
+
+    // Second flag that also abandons the search, checked alongside the stop flag
+    public void setCancelFlag(AtomicBoolean cancelFlag) {
+        this.cancelFlag = cancelFlag;
+    }
+
+    // Abandons any search still running at the given System.nanoTime()
+    public void setDeadline(long deadlineNanos) {
+        this.hasDeadline = true;
+        this.deadline = deadlineNanos;
+    }
+
+    public void clearDeadline() {
+        this.hasDeadline = false;
+    }
+
+    // Abandons a search once it has visited this many nodes
+    public void setNodeBudget(long nodes) {
+        if (nodes <= 0) throw new IllegalArgumentException("Node budget must be positive");
+        this.nodeBudget = nodes;
+    }
+
+    public void clearNodeBudget() {
+        this.nodeBudget = Long.MAX_VALUE;
+    }
+
+    // True if the last search gave up because of the stop flag, deadline or node budget
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    // True if the last search gave up because of the deadline or node budget (not the stop flag)
+    public boolean isBudgetExceeded() {
+        return budgetExceeded;
+    }
+
+    // Nodes visited so far by the running search; safe to read from any thread
+    public long getProgressNodes() {
+        return progressNodes;
+    }
+
+    // Cells placed beyond the givens at the last progress snapshot
+    public int getProgressDepth() {
+        return progressDepth;
+    }
+
+    // Independent copy of the current position, for handing a subtree to another thread
+    public BitmaskSolver copy() {
+        BitmaskSolver other = new BitmaskSolver(spec);
+        other.strategy = strategy;
+        other.restartUnit = restartUnit;
+        other.useKernel(kernel);
+        System.arraycopy(cells, 0, other.cells, 0, cellCount);
+        System.arraycopy(rowMask, 0, other.rowMask, 0, size);
+        System.arraycopy(colMask, 0, other.colMask, 0, size);
+        System.arraycopy(boxMask, 0, other.boxMask, 0, size);
+        // The trail too, so the copy can back out to any earlier mark of this one
+        System.arraycopy(trail, 0, other.trail, 0, trailSize);
+        other.trailSize = trailSize;
+        return other;
+    }
+
+    // Solves the grid in place; returns false if the givens conflict or no solution exists
+    public boolean solve(int[][] grid) {
+        if (!load(grid) || !solve()) {
+            return false;
+        }
+        store(grid);
+        return true;
+    }
+
+    // Solves the currently loaded position
+    public boolean solve() {
+        resetStatistics();
+        if (strategy == Strategy.RESTARTS) return searchWithRestarts();
+        start(strategy == Strategy.ROW_MAJOR, false, 0);
+        return search() == Progress.SOLVED;
+    }
+
+    // Counts solutions of the loaded position, stopping once the limit is reached.
+    // The position is left as loaded.
+    public long countSolutions(long limit) {
+        resetStatistics();
+        start(false, true, limit);
+        search();
+        return found;
+    }
+
+    // Stepwise search of the loaded position, for callers that want to pause
+    // it, look at it or hand it elsewhere between steps: begin(), then call
+    // resume() until it returns anything but PAUSED. RESTARTS searches as MRV
+    // here, since a restart throws away exactly the state this keeps.
+    public void begin() {
+        resetStatistics();
+        start(strategy == Strategy.ROW_MAJOR, false, 0);
+        stepwise = true;
+    }
+
+    // Runs the search begun by begin() for at most maxNodes more nodes. After
+    // SOLVED the solution is the current position (store() it); resuming again
+    // backs out of it and looks for the next one.
+    public Progress resume(long maxNodes) {
+        if (!stepwise) throw new IllegalStateException("No stepwise search begun");
+        if (maxNodes <= 0) throw new IllegalArgumentException("Node slice must be positive");
+        if (solutionMark >= 0) {
+            undo(solutionMark);
+            solutionMark = -1;
+            if (depth == 0) {
+                // Solved by propagation alone: there is no branch left to try
+                stepwise = false;
+                return Progress.EXHAUSTED;
+            }
+            undo(frameBase[depth - 1]);
+            backtracks++;
+        }
+        sliceEnd = maxNodes > Long.MAX_VALUE - nodes ? Long.MAX_VALUE : nodes + maxNodes;
+        Progress progress = search();
+        if (progress != Progress.PAUSED && progress != Progress.SOLVED) stepwise = false;
+        return progress;
+    }
+
+    // Makes a resume() running on another thread return PAUSED within
+    // CHECK_MASK + 1 nodes; a later resume() carries on where it stopped
+    public void pause() {
+        pauseRequested = true;
+    }
+
+    // Independent copy of the position, the search stack and the statistics
+    // of a paused stepwise search: resuming the copy continues the same search
+    public BitmaskSolver snapshot() {
+        BitmaskSolver other = copy();
+        System.arraycopy(frameMark, 0, other.frameMark, 0, depth);
+        System.arraycopy(frameBase, 0, other.frameBase, 0, depth);
+        System.arraycopy(frameCell, 0, other.frameCell, 0, depth);
+        System.arraycopy(frameUntried, 0, other.frameUntried, 0, depth);
+        other.depth = depth;
+        other.descend = descend;
+        other.rowMajor = rowMajor;
+        other.counting = counting;
+        other.countLimit = countLimit;
+        other.found = found;
+        other.rootMark = rootMark;
+        other.solutionMark = solutionMark;
+        other.stepwise = stepwise;
+        other.nodes = nodes;
+        other.backtracks = backtracks;
+        other.maxDepth = maxDepth;
+        other.propagations = propagations;
+        other.candidateChecks = candidateChecks;
+        return other;
+    }
+
+    // Loads givens into the masks; returns false on an out-of-range or duplicate digit
+    public boolean load(int[][] grid) {
+        if (grid.length != size) {
+            throw new IllegalArgumentException("Expected a " + spec + " grid, got " + grid.length + " rows");
+        }
+        reset();
+        for (int cell = 0; cell < cellCount; cell++) {
+            int digit = grid[rowOf[cell]][colOf[cell]];
+            if (digit == 0) continue;
+            if (digit < 1 || digit > size) return false;
+
+            long bit = 1L << (digit - 1);
+            if ((candidates(cell) & bit) == 0) return false;
+            place(cell, bit);
+        }
+        trailSize = 0;
+        return true;
+    }
+
+    public void store(int[][] grid) {
+        for (int cell = 0; cell < cellCount; cell++) {
+            grid[rowOf[cell]][colOf[cell]] = cells[cell];
+        }
+    }
+
+    public boolean load(Board board) {
+        if (board.getSpec() != spec) {
+            throw new IllegalArgumentException("Expected a " + spec + " board, got " + board.getSpec());
+        }
+        reset();
+        for (int cell = 0; cell < cellCount; cell++) {
+            int digit = board.get(cell);
+            if (digit == 0) continue;
+
+            long bit = 1L << (digit - 1);
+            if ((candidates(cell) & bit) == 0) return false;
+            place(cell, bit);
+        }
+        trailSize = 0;
+        return true;
+    }
+
+    public void store(Board board) {
+        for (int cell = 0; cell < cellCount; cell++) {
+            board.set(cell, cells[cell]);
+        }
+    }
+
+    // Solves the board in place; returns false if the givens conflict or no solution exists
+    public boolean solve(Board board) {
+        if (!load(board) || !solve()) {
+            return false;
+        }
+        store(board);
+        return true;
+    }
+
+    // Loads a text record of one character per cell ('1'-'9', then 'A'-'Z' past 9;
+    // '0' or '.' for blanks) straight from a byte buffer, with no int[][] in between
+    public boolean load(byte[] record, int offset) {
+        reset();
+        for (int cell = 0; cell < cellCount; cell++) {
+            int digit = decodeSymbol(record[offset + cell]);
+            if (digit == 0) continue;
+            if (digit < 0 || digit > size) return false;
+
+            long bit = 1L << (digit - 1);
+            if ((candidates(cell) & bit) == 0) return false;
+            place(cell, bit);
+        }
+        trailSize = 0;
+        return true;
+    }
+
+    public void store(byte[] record, int offset) {
+        for (int cell = 0; cell < cellCount; cell++) {
+            record[offset + cell] = encodeSymbol(cells[cell]);
+        }
+    }
+
+    // Same as load(byte[], int), reading a memory-mapped or direct buffer by absolute index
+    public boolean load(ByteBuffer record, int offset) {
+        reset();
+        for (int cell = 0; cell < cellCount; cell++) {
+            int digit = decodeSymbol(record.get(offset + cell));
+            if (digit == 0) continue;
+            if (digit < 0 || digit > size) return false;
+
+            long bit = 1L << (digit - 1);
+            if ((candidates(cell) & bit) == 0) return false;
+            place(cell, bit);
+        }
+        trailSize = 0;
+        return true;
+    }
+
+    public void store(ByteBuffer record, int offset) {
+        for (int cell = 0; cell < cellCount; cell++) {
+            record.put(offset + cell, encodeSymbol(cells[cell]));
+        }
+    }
+
+    static int decodeSymbol(int symbol) {
+        if (symbol == '0' || symbol == '.') return 0;
+        if (symbol >= '1' && symbol <= '9') return symbol - '0';
+        if (symbol >= 'A' && symbol <= 'Z') return symbol - 'A' + 10;
+        return -1;
+    }
+
+    static byte encodeSymbol(int digit) {
+        if (digit == 0) return '.';
+        return (byte) (digit <= 9 ? '0' + digit : 'A' + digit - 10);
+    }
+
+    // Clears the position, and the statistics of the previous search with it
+    public void reset() {
+        resetStatistics();
+        Arrays.fill(cells, 0);
+        Arrays.fill(rowMask, 0);
+        Arrays.fill(colMask, 0);
+        Arrays.fill(boxMask, 0);
+        trailSize = 0;
+    }
+
+    // Candidate digits of a cell as a bitmask (bit d-1 set => digit d allowed)
+    public long candidates(int cell) {
+        return ~(rowMask[rowOf[cell]] | colMask[colOf[cell]] | boxMask[boxOf[cell]]) & allDigits;
+    }
+
+    public int candidateCount(int cell) {
+        return Long.bitCount(candidates(cell));
+    }
+
+    // Places a digit bit known to be a candidate; used when branching outside the engine
+    void assign(int cell, long bit) {
+        place(cell, bit);
+    }
+
+    private boolean stopped() {
+        if (aborted) return true;
+        if (nodes >= nodeBudget) {
+            budgetExceeded = aborted = true;
+        } else if (nodes >= runLimit) {
+            restartDue = aborted = true;
+        } else if ((nodes & CHECK_MASK) == 0) {
+            progressNodes = nodes;
+            progressDepth = trailSize;
+            if (stopFlag != null && stopFlag.get() || cancelFlag != null && cancelFlag.get()) {
+                aborted = true;
+            } else if (hasDeadline && System.nanoTime() - deadline >= 0) {
+                budgetExceeded = aborted = true;
+            }
+        }
+        return aborted;
+    }
+
+    private void place(int cell, long bit) {
+        trail[trailSize++] = cell;
+        cells[cell] = Long.numberOfTrailingZeros(bit) + 1;
+        rowMask[rowOf[cell]] |= bit;
+        colMask[colOf[cell]] |= bit;
+        boxMask[boxOf[cell]] |= bit;
+    }
+
+    private void unplace(int cell, long bit) {
+        trailSize--;
+        cells[cell] = 0;
+        rowMask[rowOf[cell]] &= ~bit;
+        colMask[colOf[cell]] &= ~bit;
+        boxMask[boxOf[cell]] &= ~bit;
+    }
+
+    // Current trail length, to undo() back to later; used when branching outside the engine
+    int mark() {
+        return trailSize;
+    }
+
+    // Rolls back every placement made after the trail was at the given mark
+    void undo(int mark) {
+        while (trailSize > mark) {
+            int cell = trail[trailSize - 1];
+            unplace(cell, 1L << (cells[cell] - 1));
+        }
+    }
+
+    // Hands the upper half of the untried digits of the shallowest frame with
+    // two or more to an independent stepwise search that tries just those,
+    // so the two searches split the rest of the tree; null if no frame has
+    // two. Used by SolutionEnumerator.trySplit.
+    BitmaskSolver splitSearch() {
+        for (int level = 0; level < depth; level++) {
+            long untried = frameUntried[level];
+            if (Long.bitCount(untried) < 2) continue;
+            long given = untried;
+            for (int i = Long.bitCount(untried) / 2; i > 0; i--) given &= given - 1;
+            frameUntried[level] = untried ^ given;
+
+            BitmaskSolver other = copy();
+            other.undo(frameBase[level]);
+            other.frameMark[0] = frameBase[level];
+            other.frameBase[0] = frameBase[level];
+            other.frameCell[0] = frameCell[level];
+            other.frameUntried[0] = given;
+            other.depth = 1;
+            other.rootMark = frameBase[level];
+            other.rowMajor = rowMajor;
+            other.stepwise = true;
+            return other;
+        }
+        return null;
+    }
+
+    // Sets up a search rooted at the current position. Unless counting, it
+    // stops at the first solution and leaves it in place.
+    private void start(boolean rowMajor, boolean counting, long countLimit) {
+        this.rowMajor = rowMajor;
+        this.counting = counting;
+        this.countLimit = countLimit;
+        found = 0;
+        depth = 0;
+        rootMark = trailSize;
+        solutionMark = -1;
+        descend = true;
+        stepwise = false;
+        pauseRequested = false;
+        sliceEnd = Long.MAX_VALUE;
+    }
+
+    // The search loop. A node is visited (propagated, for MRV, then given a
+    // frame for its branching cell) when descend is set; otherwise the deepest
+    // frame takes its next untried digit, or is popped once it has none. All
+    // state lives in fields, so returning PAUSED and calling again is free.
+    private Progress search() {
+        while (true) {
+            if (descend) {
+                if (nodes >= sliceEnd || (stepwise && (nodes & CHECK_MASK) == 0 && pauseRequested)) {
+                    pauseRequested = false;
+                    return Progress.PAUSED;
+                }
+                descend = false;
+                int mark = trailSize;
+                int cell;
+                boolean dead = false;
+                if (rowMajor) {
+                    // Skip filled cells without a frame each
+                    cell = depth == 0 ? 0 : frameCell[depth - 1] + 1;
+                    while (cell < cellCount && cells[cell] != 0) cell++;
+                    if (cell == cellCount) {
+                        cell = -1;
+                    } else if (stopped()) {
+                        return unwind();
+                    } else {
+                        nodes++;
+                        if (trailSize > maxDepth) maxDepth = trailSize;
+                        candidateChecks++;
+                    }
+                } else if (stopped()) {
+                    return unwind();
+                } else {
+                    nodes++;
+                    if (propagate()) {
+                        if (trailSize > maxDepth) maxDepth = trailSize;
+                        cell = selectCell();
+                    } else {
+                        undo(mark);
+                        cell = -1;
+                        dead = true;
+                    }
+                }
+
+                if (cell >= 0) {
+                    frameMark[depth] = mark;
+                    frameBase[depth] = trailSize;
+                    frameCell[depth] = cell;
+                    frameUntried[depth] = candidates(cell);
+                    depth++;
+                } else {
+                    if (!dead) { // no empty cell left
+                        if (!counting) {
+                            solutionMark = mark;
+                            return Progress.SOLVED;
+                        }
+                        found++;
+                        undo(mark);
+                    }
+                    // Back in the parent: the branch is done with
+                    if (depth == 0) return Progress.EXHAUSTED;
+                    undo(frameBase[depth - 1]);
+                    backtracks++;
+                }
+                continue;
+            }
+
+            int top = depth - 1;
+            long untried = frameUntried[top];
+            if (untried == 0 || (counting && found >= countLimit)) {
+                undo(frameMark[top]);
+                depth = top;
+                if (top == 0) return Progress.EXHAUSTED;
+                undo(frameBase[top - 1]);
+                backtracks++;
+                continue;
+            }
+            long bit = nextBit(untried);
+            frameUntried[top] = untried ^ bit;
+            place(frameCell[top], bit);
+            descend = true;
+        }
+    }
+
+    // Abandons the search, back to the position it started from
+    private Progress unwind() {
+        undo(rootMark);
+        depth = 0;
+        stepwise = false;
+        return Progress.ABORTED;
+    }
+
+    // Every run unwinds to the loaded position when abandoned, and a run that
+    // ends within its limit has searched its whole (shuffled) tree, so a
+    // false result still proves there is no solution
+    private boolean searchWithRestarts() {
+        shuffle = random != null ? random : new SplittableRandom();
+        try {
+            for (long run = 1; ; run++) {
+                long limit = luby(run) * restartUnit;
+                runLimit = limit > Long.MAX_VALUE - nodes ? Long.MAX_VALUE : nodes + limit;
+                start(false, false, 0);
+                if (search() == Progress.SOLVED) return true;
+                if (!restartDue) return false;
+                restartDue = aborted = false;
+                restarts++;
+            }
+        } finally {
+            shuffle = null;
+            runLimit = Long.MAX_VALUE;
+            restartDue = false;
+        }
+    }
+
+    // Luby sequence 1 1 2 1 1 2 4 1 1 2 1 1 2 4 8 ... (i from 1): within a
+    // log factor of the best fixed restart limit without knowing it
+    static long luby(long i) {
+        while (true) {
+            int k = 1;
+            while ((1L << k) - 1 < i) k++;
+            if ((1L << k) - 1 == i) return 1L << (k - 1);
+            i -= (1L << (k - 1)) - 1;
+        }
+    }
+
+    // Some set bit of candidates, the lowest unless a RESTARTS search is shuffling
+    private long nextBit(long candidates) {
+        if (shuffle == null) return candidates & -candidates;
+        return Long.expand(1L << shuffle.nextInt(Long.bitCount(candidates)), candidates);
+    }
+
+    // Empty cell with the fewest candidates, or -1 if the grid is full
+    int selectCell() {
+        int best = -1;
+        int bestCount = size + 1;
+        int ties = 0;
+        int checks = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (cells[cell] != 0) continue;
+            int count = candidateCount(cell);
+            checks++;
+            if (count < bestCount) {
+                best = cell;
+                bestCount = count;
+                ties = 1;
+                if (count <= 1) break;
+            } else if (count == bestCount && shuffle != null && shuffle.nextInt(++ties) == 0) {
+                best = cell; // uniform pick among the tied cells
+            }
+        }
+        candidateChecks += checks;
+        return best;
+    }
+
+    // Applies naked and hidden singles until nothing changes; false on contradiction
+    boolean propagate() {
+        int mark = trailSize;
+        int checks = 0;
+        boolean consistent = true;
+        boolean changed = true;
+        scan:
+        while (changed) {
+            changed = false;
+
+            // Naked singles: a cell with exactly one candidate
+            if (kernel != null) {
+                for (int i = 0; i < size; i++) {
+                    rowBits[i] = (int) rowMask[i];
+                    colBits[i] = (int) colMask[i];
+                    boxBits[i] = (int) boxMask[i];
+                }
+                int singles = kernel.scan(cells, rowBits, colBits, boxBits, kernelCandidates);
+                checks += cellCount;
+                if (singles < 0) {
+                    consistent = false;
+                    break scan;
+                }
+                // Naked singles go to a fixpoint before hidden singles are looked
+                // for, so the hidden pass can read this pass's candidates as-is
+                if (singles > 0) changed = true;
+                for (int cell = 0; singles > 0; cell++) {
+                    int snapshot = kernelCandidates[cell];
+                    if (snapshot == 0 || (snapshot & (snapshot - 1)) != 0) continue;
+                    singles--;
+                    // The scan saw the board before this pass placed anything, so
+                    // an earlier single may have taken this cell's last digit
+                    long candidates = candidates(cell);
+                    checks++;
+                    if (candidates == 0) {
+                        consistent = false;
+                        break scan;
+                    }
+                    place(cell, candidates);
+                }
+                if (changed) continue;
+            } else {
+                for (int cell = 0; cell < cellCount; cell++) {
+                    if (cells[cell] != 0) continue;
+                    long candidates = candidates(cell);
+                    checks++;
+                    if (candidates == 0) {
+                        consistent = false;
+                        break scan;
+                    }
+                    if ((candidates & (candidates - 1)) == 0) {
+                        place(cell, candidates);
+                        changed = true;
+                    }
+                }
+            }
+
+            // Hidden singles: a digit with exactly one possible cell in a unit
+            for (int[] unit : units) {
+                long once = 0, twice = 0, placed = 0;
+                for (int cell : unit) {
+                    if (cells[cell] != 0) {
+                        placed |= 1L << (cells[cell] - 1);
+                        continue;
+                    }
+                    long candidates;
+                    if (kernel != null) {
+                        // Stale once a hidden single is placed: only ever a superset,
+                        // so at worst a deduction waits for the next pass
+                        candidates = kernelCandidates[cell];
+                    } else {
+                        candidates = candidates(cell);
+                        checks++;
+                    }
+                    twice |= once & candidates;
+                    once |= candidates;
+                }
+                if ((once | placed) != allDigits) { // some digit has nowhere to go
+                    consistent = false;
+                    break scan;
+                }
+
+                long hidden = once & ~twice & ~placed;
+                while (hidden != 0) {
+                    long bit = hidden & -hidden;
+                    hidden ^= bit;
+                    for (int cell : unit) {
+                        if (cells[cell] == 0 && (candidates(cell) & bit) != 0) {
+                            place(cell, bit);
+                            changed = true;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        candidateChecks += checks;
+        propagations += trailSize - mark;
+        return consistent;
+    }
+}
@@ -0,0 +1,144 @@
+import java.util.*;
+
+// Compact Board Representation
+// One byte per cell in a flat array (row * size + col), instead of an int[][]
+// of size + 1 objects. pack() squeezes a 9x9 board into 41 bytes (two cells
+// per byte) for storage, caches and hashing. Boards are mutable but cheap to
+// copy(); the int[][] adapters keep the older APIs working.
+final class Board {
+    private final GridSpec spec;
+    private final byte[] cells;
+
+    public Board() {
+        this(GridSpec.CLASSIC);
+    }
+
+    public Board(GridSpec spec) {
+        this.spec = spec;
+        this.cells = new byte[spec.cells];
+    }
+
+    private Board(GridSpec spec, byte[] cells) {
+        this.spec = spec;
+        this.cells = cells;
+    }
+
+    public static Board fromGrid(int[][] grid) {
+        GridSpec spec = GridSpec.forGrid(grid);
+        Board board = new Board(spec);
+        for (int cell = 0; cell < spec.cells; cell++) {
+            board.set(cell, grid[spec.rowOf[cell]][spec.colOf[cell]]);
+        }
+        return board;
+    }
+
+    // Parses the one-line text form ('1'-'9', then 'A'-'Z'; '0' or '.' for blanks)
+    public static Board parse(CharSequence text) {
+        GridSpec spec = GridSpec.of((int) Math.round(Math.sqrt(Math.sqrt(text.length()))));
+        if (text.length() != spec.cells) {
+            throw new IllegalArgumentException("Not a square board: " + text.length() + " characters");
+        }
+        Board board = new Board(spec);
+        for (int cell = 0; cell < spec.cells; cell++) {
+            int digit = BitmaskSolver.decodeSymbol(text.charAt(cell));
+            if (digit < 0) {
+                throw new IllegalArgumentException("Bad symbol '" + text.charAt(cell) + "' at " + cell);
+            }
+            board.set(cell, digit);
+        }
+        return board;
+    }
+
+    public GridSpec getSpec() {
+        return spec;
+    }
+
+    public int get(int cell) {
+        return cells[cell];
+    }
+
+    public int get(int row, int col) {
+        return cells[row * spec.size + col];
+    }
+
+    public void set(int cell, int digit) {
+        if (digit < 0 || digit > spec.size) {
+            throw new IllegalArgumentException("Digit out of range: " + digit);
+        }
+        cells[cell] = (byte) digit;
+    }
+
+    public void set(int row, int col, int digit) {
+        set(row * spec.size + col, digit);
+    }
+
+    public int filledCount() {
+        int count = 0;
+        for (byte digit : cells) {
+            if (digit != 0) count++;
+        }
+        return count;
+    }
+
+    public Board copy() {
+        return new Board(spec, cells.clone());
+    }
+
+    public void copyFrom(Board other) {
+        if (other.spec != spec) throw new IllegalArgumentException("Board size mismatch");
+        System.arraycopy(other.cells, 0, cells, 0, cells.length);
+    }
+
+    public int[][] toGrid() {
+        int[][] grid = new int[spec.size][spec.size];
+        copyInto(grid);
+        return grid;
+    }
+
+    public void copyInto(int[][] grid) {
+        for (int cell = 0; cell < spec.cells; cell++) {
+            grid[spec.rowOf[cell]][spec.colOf[cell]] = cells[cell];
+        }
+    }
+
+    // 4 bits per cell up to 15x15 digits (41 bytes for 9x9), one byte per cell beyond
+    public byte[] pack() {
+        if (spec.size > 15) return cells.clone();
+        byte[] packed = new byte[(spec.cells + 1) / 2];
+        for (int cell = 0; cell < spec.cells; cell++) {
+            packed[cell >> 1] |= (byte) (cells[cell] << ((cell & 1) << 2));
+        }
+        return packed;
+    }
+
+    public static Board unpack(GridSpec spec, byte[] packed) {
+        if (spec.size > 15) return new Board(spec, packed.clone());
+        Board board = new Board(spec);
+        for (int cell = 0; cell < spec.cells; cell++) {
+            board.cells[cell] = (byte) ((packed[cell >> 1] >> ((cell & 1) << 2)) & 0xF);
+        }
+        return board;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Board)) return false;
+        Board other = (Board) o;
+        return spec == other.spec && Arrays.equals(cells, other.cells);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(cells);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(spec.cells);
+        for (byte digit : cells) {
+            text.append((char) BitmaskSolver.encodeSymbol(digit));
+        }
+        return text.toString();
+    }
+}
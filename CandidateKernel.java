@@ -0,0 +1,78 @@
+// Candidate Kernel
+// Computes the candidate masks of every cell of a board in one pass, for
+// BitmaskSolver's naked-single scan. The engine hands over int copies of its
+// row, column and box masks (boards up to 25x25 fit in 32 bits); the kernel
+// writes ~(row | col | box) for each empty cell and 0 for each filled one.
+//
+// Two implementations:
+// - Scalar: a plain loop, always available
+// - VectorCandidateKernel (vector/): the same pass in SIMD lanes through
+//   jdk.incubator.vector, gathering the three masks per lane. It is compiled
+//   separately and only used when the JVM was started with
+//   --add-modules jdk.incubator.vector; otherwise forSpec() falls back to Scalar.
+abstract class CandidateKernel {
+    // Largest board whose digit masks fit an int lane
+    static final int MAX_SIZE = 32;
+
+    protected final int cellCount;
+    protected final int allDigits;
+    protected final int[] rowOf;
+    protected final int[] colOf;
+    protected final int[] boxOf;
+
+    protected CandidateKernel(GridSpec spec) {
+        if (spec.size > MAX_SIZE) {
+            throw new IllegalArgumentException("Candidate kernels need digit masks of at most " + MAX_SIZE + " bits");
+        }
+        this.cellCount = spec.cells;
+        this.allDigits = (int) spec.allDigits;
+        this.rowOf = spec.rowOf;
+        this.colOf = spec.colOf;
+        this.boxOf = spec.boxOf;
+    }
+
+    // Fills candidates[cell] for every cell. Returns -1 if some empty cell has
+    // no candidate left, else the number of empty cells with exactly one.
+    abstract int scan(int[] cells, int[] rowMask, int[] colMask, int[] boxMask, int[] candidates);
+
+    abstract String name();
+
+    // The vector kernel when the incubator module is present, else the scalar one
+    static CandidateKernel forSpec(GridSpec spec) {
+        try {
+            return (CandidateKernel) Class.forName("VectorCandidateKernel")
+                    .getDeclaredConstructor(GridSpec.class)
+                    .newInstance(spec);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Not compiled in, or jdk.incubator.vector not resolved at run time
+            return new Scalar(spec);
+        }
+    }
+
+    static final class Scalar extends CandidateKernel {
+        Scalar(GridSpec spec) {
+            super(spec);
+        }
+
+        @Override
+        int scan(int[] cells, int[] rowMask, int[] colMask, int[] boxMask, int[] candidates) {
+            int singles = 0;
+            for (int cell = 0; cell < cellCount; cell++) {
+                if (cells[cell] != 0) {
+                    candidates[cell] = 0;
+                    continue;
+                }
+                int mask = ~(rowMask[rowOf[cell]] | colMask[colOf[cell]] | boxMask[boxOf[cell]]) & allDigits;
+                if (mask == 0) return -1;
+                candidates[cell] = mask;
+                if ((mask & (mask - 1)) == 0) singles++;
+            }
+            return singles;
+        }
+
+        @Override
+        String name() {
+            return "scalar";
+        }
+    }
+}
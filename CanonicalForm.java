@@ -0,0 +1,269 @@
+import java.util.*;
+
+// Canonical Puzzle Form (9x9)
+// Maps a puzzle onto a representative of its class under the Sudoku symmetries
+// (transpose, band and stack permutations, row/column permutations within
+// them, digit relabeling), remembering the transform so a solution of the
+// canonical puzzle can be mapped back.
+//
+// All 2 x 6 x 6 transpose/band/stack combinations are tried; rows inside a
+// band and columns inside a stack are ordered by a clue-count signature, and
+// digits are relabeled in order of first appearance. The lexicographically
+// smallest result wins. Lines with equal signatures keep their original order,
+// so some equivalent puzzles get different forms (a cache miss, never a wrong
+// answer), in exchange for ~10us per puzzle instead of a full search of the
+// 3.4M-element group. Candidates read a transposed copy rather than remapping
+// every cell, most are abandoned within the first row or two, and the line
+// orders and cell mapping are worked out once rather than per candidate.
+class CanonicalForm {
+    private static final int SIZE = 9;
+    private static final int SUBGRID = 3;
+    private static final int CELLS = SIZE * SIZE;
+    private static final int[][] PERMUTATIONS = {
+            {0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}
+    };
+
+    private final int[] grid = new int[CELLS];
+    private final int[] transposed = new int[CELLS];
+    private final int[] rowCount = new int[SIZE];
+    private final int[] colCount = new int[SIZE];
+    private final int[] rowKey = new int[SIZE];
+    private final int[] colKey = new int[SIZE];
+    private final int[] sortedKey = new int[SIZE];
+    private final int[][] order = new int[SUBGRID][SUBGRID];
+    // Line of the source grid at each position, per band (stack) permutation
+    private final int[][] rowMaps = new int[PERMUTATIONS.length][SIZE];
+    private final int[][] colMaps = new int[PERMUTATIONS.length][SIZE];
+
+    private final int[] candidate = new int[CELLS];
+    private final int[] candidateLabel = new int[SIZE + 1];
+    private boolean bestTranspose;
+    private final int[] bestRowMap = new int[SIZE];
+    private final int[] bestColMap = new int[SIZE];
+
+    // Result of the last canonicalize(): canonical cells, the original cell each
+    // came from, and the digit relabeling (original -> canonical and back)
+    private final int[] best = new int[CELLS];
+    private final int[] cellMap = new int[CELLS];
+    private final int[] digitMap = new int[SIZE + 1];
+    private final int[] inverseDigit = new int[SIZE + 1];
+
+    public void canonicalize(int[][] puzzle) {
+        load(puzzle);
+        boolean found = false;
+        for (int transpose = 0; transpose < 2; transpose++) {
+            // Transposing swaps the roles of the row and column signatures
+            int[] lines = transpose == 1 ? transposed : grid;
+            lineMaps(transpose == 1 ? colKey : rowKey, rowMaps);
+            lineMaps(transpose == 1 ? rowKey : colKey, colMaps);
+            for (int[] rowMap : rowMaps) {
+                for (int[] colMap : colMaps) {
+                    if (tryCandidate(lines, rowMap, colMap, found)) {
+                        found = true;
+                        bestTranspose = transpose == 1;
+                        System.arraycopy(rowMap, 0, bestRowMap, 0, SIZE);
+                        System.arraycopy(colMap, 0, bestColMap, 0, SIZE);
+                    }
+                }
+            }
+        }
+        completeCellMap();
+        completeDigitMap();
+    }
+
+    // Hash of the puzzle's line signatures, which every symmetric copy shares
+    // (as do some unrelated puzzles): a different value proves two puzzles have
+    // different canonical forms, at a fraction of the cost of canonicalize()
+    public long invariant(int[][] puzzle) {
+        load(puzzle);
+        long rows = sortedHash(rowKey);
+        long cols = sortedHash(colKey);
+        // Transposing swaps the two, so combine them in a fixed order
+        long hash = Math.min(rows, cols) * 0x9E3779B97F4A7C15L + Math.max(rows, cols);
+        return hash ^ (hash >>> 29);
+    }
+
+    // Packs the canonical form of the last canonicalized puzzle into the first
+    // 41 bytes of key, laid out as Board.pack() would
+    public void pack(byte[] key) {
+        for (int i = 0; i < CELLS / 2; i++) {
+            key[i] = (byte) (best[2 * i] | best[2 * i + 1] << 4);
+        }
+        key[CELLS / 2] = (byte) best[CELLS - 1];
+    }
+
+    // Canonical form of the last canonicalized puzzle
+    public Board board() {
+        Board board = new Board();
+        for (int cell = 0; cell < CELLS; cell++) {
+            board.set(cell, best[cell]);
+        }
+        return board;
+    }
+
+    // Applies the last transform to a grid (e.g. the puzzle's solution)
+    public Board toCanonical(int[][] original) {
+        Board board = new Board();
+        for (int p = 0; p < CELLS; p++) {
+            int cell = cellMap[p];
+            board.set(p, digitMap[original[cell / SIZE][cell % SIZE]]);
+        }
+        return board;
+    }
+
+    // Applies the inverse of the last transform, writing into an original-layout grid
+    public void fromCanonical(Board canonical, int[][] original) {
+        for (int p = 0; p < CELLS; p++) {
+            int cell = cellMap[p];
+            original[cell / SIZE][cell % SIZE] = inverseDigit[canonical.get(p)];
+        }
+    }
+
+    // Same, from a packed canonical grid (see Board.pack)
+    public void fromCanonical(byte[] packed, int[][] original) {
+        for (int p = 0; p < CELLS; p++) {
+            int cell = cellMap[p];
+            original[cell / SIZE][cell % SIZE] = inverseDigit[(packed[p >> 1] >> ((p & 1) << 2)) & 0xF];
+        }
+    }
+
+    private void load(int[][] puzzle) {
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                grid[row * SIZE + col] = transposed[col * SIZE + row] = puzzle[row][col];
+            }
+        }
+        lineKeys();
+    }
+
+    // Hash of the keys in increasing order, so independent of line order
+    private long sortedHash(int[] keys) {
+        System.arraycopy(keys, 0, sortedKey, 0, SIZE);
+        Arrays.sort(sortedKey);
+        long hash = 1;
+        for (int key : sortedKey) hash = hash * 0x100000001B3L + key;
+        return hash;
+    }
+
+    // Signature of every row and column that relabeling and permuting the other
+    // axis cannot change: clue count, then the clue counts of the crossing
+    // lines, then the spread over boxes
+    private void lineKeys() {
+        Arrays.fill(rowCount, 0);
+        Arrays.fill(colCount, 0);
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                if (grid[row * SIZE + col] != 0) {
+                    rowCount[row]++;
+                    colCount[col]++;
+                }
+            }
+        }
+        Arrays.fill(rowKey, 0);
+        Arrays.fill(colKey, 0);
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                if (grid[row * SIZE + col] == 0) continue;
+                rowKey[row] += colCount[col];
+                colKey[col] += rowCount[row];
+            }
+        }
+        for (int i = 0; i < SIZE; i++) {
+            rowKey[i] = (rowCount[i] << 20) | (rowKey[i] << 10) | spread(grid, i * SIZE, 1);
+            colKey[i] = (colCount[i] << 20) | (colKey[i] << 10) | spread(grid, i, SIZE);
+        }
+    }
+
+    // Sum of squared clue counts per box along the line starting at first and
+    // advancing by step: independent of box order
+    private static int spread(int[] lines, int first, int step) {
+        int total = 0;
+        for (int segment = 0; segment < SIZE; segment += SUBGRID) {
+            int count = 0;
+            for (int k = segment; k < segment + SUBGRID; k++) {
+                if (lines[first + k * step] != 0) count++;
+            }
+            total += count * count;
+        }
+        return total;
+    }
+
+    // Orders the lines within each group by their keys, then lists the source
+    // line at each position for every permutation of the groups
+    private void lineMaps(int[] keys, int[][] maps) {
+        for (int group = 0; group < SUBGRID; group++) {
+            sortGroup(keys, group, order[group]);
+        }
+        for (int p = 0; p < PERMUTATIONS.length; p++) {
+            int[] groups = PERMUTATIONS[p];
+            for (int i = 0; i < SIZE; i++) {
+                maps[p][i] = SUBGRID * groups[i / SUBGRID] + order[groups[i / SUBGRID]][i % SUBGRID];
+            }
+        }
+    }
+
+    // Offsets within the group, highest key first (insertion sort of three, stable)
+    private static void sortGroup(int[] keys, int group, int[] order) {
+        for (int i = 0; i < SUBGRID; i++) {
+            int j = i;
+            while (j > 0 && keys[group * SUBGRID + order[j - 1]] < keys[group * SUBGRID + i]) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            order[j] = i;
+        }
+    }
+
+    // Builds the relabeled candidate, abandoning it as soon as it compares above the best
+    private boolean tryCandidate(int[] lines, int[] rowMap, int[] colMap, boolean haveBest) {
+        Arrays.fill(candidateLabel, 0);
+        int nextLabel = 1;
+        boolean smaller = !haveBest;
+        int p = 0;
+        for (int row = 0; row < SIZE; row++) {
+            int first = rowMap[row] * SIZE;
+            for (int col = 0; col < SIZE; col++, p++) {
+                int digit = lines[first + colMap[col]];
+                int value = 0;
+                if (digit != 0) {
+                    if (candidateLabel[digit] == 0) candidateLabel[digit] = nextLabel++;
+                    value = candidateLabel[digit];
+                }
+                if (!smaller) {
+                    if (value > best[p]) return false;
+                    if (value < best[p]) smaller = true;
+                }
+                candidate[p] = value;
+            }
+        }
+        if (!smaller) return false;
+
+        System.arraycopy(candidate, 0, best, 0, CELLS);
+        System.arraycopy(candidateLabel, 0, digitMap, 0, SIZE + 1);
+        return true;
+    }
+
+    // The original cell behind each canonical cell, for the winning transform
+    private void completeCellMap() {
+        for (int p = 0; p < CELLS; p++) {
+            int row = bestRowMap[p / SIZE];
+            int col = bestColMap[p % SIZE];
+            cellMap[p] = bestTranspose ? col * SIZE + row : row * SIZE + col;
+        }
+    }
+
+    // Digits absent from the puzzle get the remaining labels in increasing order
+    private void completeDigitMap() {
+        int nextLabel = 1;
+        for (int digit = 1; digit <= SIZE; digit++) {
+            if (digitMap[digit] != 0) nextLabel = Math.max(nextLabel, digitMap[digit] + 1);
+        }
+        for (int digit = 1; digit <= SIZE; digit++) {
+            if (digitMap[digit] == 0) digitMap[digit] = nextLabel++;
+        }
+        digitMap[0] = 0;
+        for (int digit = 0; digit <= SIZE; digit++) {
+            inverseDigit[digitMap[digit]] = digit;
+        }
+    }
+}
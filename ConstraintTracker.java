@@ -0,0 +1,125 @@
+import java.util.*;
+
+// Incremental Constraint Tracker
+// Mirrors the digits of a board being edited and keeps, for every row, column
+// and box, how often each digit occurs in it. A single set() updates the three
+// units the cell belongs to, so conflicts, candidates and "is it solved?" are
+// answered without rescanning the board or allocating.
+class ConstraintTracker {
+    private final GridSpec spec;
+    private final int size;
+    private final int[] values;
+    // counts[unit][digit]: occurrences of the digit in the unit (units as in GridSpec)
+    private final int[][] counts;
+    // Digits present in each unit
+    private final long[] used;
+    private int filled;
+    // Extra copies of digits across all units; zero means no conflicts
+    private int duplicates;
+
+    public ConstraintTracker(GridSpec spec) {
+        this.spec = spec;
+        this.size = spec.size;
+        values = new int[spec.cells];
+        counts = new int[3 * size][size + 1];
+        used = new long[3 * size];
+    }
+
+    public GridSpec getSpec() {
+        return spec;
+    }
+
+    public int get(int cell) {
+        return values[cell];
+    }
+
+    // Sets a cell (0 clears it) and returns the previous digit
+    public int set(int cell, int digit) {
+        if (digit < 0 || digit > size) {
+            throw new IllegalArgumentException("Digit out of range: " + digit);
+        }
+        int previous = values[cell];
+        if (previous == digit) return previous;
+
+        int row = spec.rowOf[cell];
+        int col = size + spec.colOf[cell];
+        int box = 2 * size + spec.boxOf[cell];
+        if (previous != 0) {
+            remove(row, previous);
+            remove(col, previous);
+            remove(box, previous);
+            filled--;
+        }
+        if (digit != 0) {
+            add(row, digit);
+            add(col, digit);
+            add(box, digit);
+            filled++;
+        }
+        values[cell] = digit;
+        return previous;
+    }
+
+    private void add(int unit, int digit) {
+        if (counts[unit][digit]++ > 0) duplicates++;
+        used[unit] |= 1L << (digit - 1);
+    }
+
+    private void remove(int unit, int digit) {
+        if (--counts[unit][digit] > 0) {
+            duplicates--;
+        } else {
+            used[unit] &= ~(1L << (digit - 1));
+        }
+    }
+
+    // True if the cell's digit also appears elsewhere in its row, column or box
+    public boolean isConflict(int cell) {
+        int digit = values[cell];
+        if (digit == 0) return false;
+        return counts[spec.rowOf[cell]][digit] > 1
+                || counts[size + spec.colOf[cell]][digit] > 1
+                || counts[2 * size + spec.boxOf[cell]][digit] > 1;
+    }
+
+    // Digits not yet used by any unit of the cell
+    public long candidates(int cell) {
+        return spec.allDigits & ~(used[spec.rowOf[cell]]
+                | used[size + spec.colOf[cell]]
+                | used[2 * size + spec.boxOf[cell]]);
+    }
+
+    public int candidateCount(int cell) {
+        return Long.bitCount(candidates(cell));
+    }
+
+    public int filledCount() {
+        return filled;
+    }
+
+    public boolean isComplete() {
+        return filled == spec.cells;
+    }
+
+    public boolean hasConflicts() {
+        return duplicates > 0;
+    }
+
+    public boolean isSolved() {
+        return isComplete() && !hasConflicts();
+    }
+
+    public void copyInto(int[][] grid) {
+        for (int cell = 0; cell < spec.cells; cell++) {
+            grid[spec.rowOf[cell]][spec.colOf[cell]] = values[cell];
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0);
+        for (int[] unit : counts) Arrays.fill(unit, 0);
+        Arrays.fill(used, 0);
+        filled = 0;
+        duplicates = 0;
+    }
+}
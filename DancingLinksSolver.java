@@ -0,0 +1,183 @@
+// Dancing Links (Knuth's Algorithm X) Solver
+// Encodes the 9x9 grid as the standard exact-cover matrix:
+// - 729 rows, one per (cell, digit) placement
+// - 324 columns: cell filled, row has digit, column has digit, box has digit
+// Links live in preallocated int arrays, so solving and counting allocate nothing.
+//
+// Not used by the solver or generator: BitmaskSolver counts to two faster on
+// every corpus (UniquenessBenchmark, about 7x on EASY and 2x on SEVENTEEN), so
+// PuzzleGenerator keeps it for uniqueness checks. This stays as the
+// independent exact-cover implementation those numbers are measured against.
+class DancingLinksSolver {
+    private static final int SIZE = 9;
+    private static final int SUBGRID = 3;
+    private static final int CELLS = SIZE * SIZE;
+    private static final int COLUMNS = 4 * CELLS;
+    private static final int ROWS = CELLS * SIZE;
+    private static final int ROOT = 0;
+    private static final int NODES = 1 + COLUMNS + 4 * ROWS;
+
+    // Node links; indices 1..COLUMNS are the column headers
+    private final int[] left = new int[NODES];
+    private final int[] right = new int[NODES];
+    private final int[] up = new int[NODES];
+    private final int[] down = new int[NODES];
+    private final int[] column = new int[NODES];
+    private final int[] rowOf = new int[NODES];
+    private final int[] size = new int[COLUMNS + 1];
+    // First node of each matrix row (rowId = cell * 9 + digit - 1)
+    private final int[] rowStart = new int[ROWS];
+
+    private final int[] solution = new int[CELLS];
+    private final int[] firstSolution = new int[CELLS];
+    private final int[] givens = new int[CELLS];
+    private int givenCount;
+    private int firstDepth;
+    private int found;
+    private int limit;
+
+    public DancingLinksSolver() {
+        for (int c = 0; c <= COLUMNS; c++) {
+            left[c] = c == 0 ? COLUMNS : c - 1;
+            right[c] = c == COLUMNS ? 0 : c + 1;
+            up[c] = c;
+            down[c] = c;
+            column[c] = c;
+        }
+
+        int node = COLUMNS + 1;
+        for (int cell = 0; cell < CELLS; cell++) {
+            int row = cell / SIZE;
+            int col = cell % SIZE;
+            int box = (row / SUBGRID) * SUBGRID + col / SUBGRID;
+            for (int d = 0; d < SIZE; d++) {
+                int rowId = cell * SIZE + d;
+                int[] cols = {
+                        1 + cell,
+                        1 + CELLS + row * SIZE + d,
+                        1 + 2 * CELLS + col * SIZE + d,
+                        1 + 3 * CELLS + box * SIZE + d
+                };
+                rowStart[rowId] = node;
+                for (int k = 0; k < 4; k++) {
+                    int c = cols[k];
+                    column[node] = c;
+                    rowOf[node] = rowId;
+                    // Append at the bottom of the column
+                    up[node] = up[c];
+                    down[node] = c;
+                    down[up[c]] = node;
+                    up[c] = node;
+                    size[c]++;
+                    // Circular row links
+                    left[node] = k == 0 ? node + 3 : node - 1;
+                    right[node] = k == 3 ? node - 3 : node + 1;
+                    node++;
+                }
+            }
+        }
+    }
+
+    // Solves the grid in place; returns false if the givens conflict or no solution exists
+    public boolean solve(int[][] grid) {
+        if (run(grid, 1) == 0) return false;
+        for (int k = 0; k < firstDepth; k++) {
+            int rowId = firstSolution[k];
+            int cell = rowId / SIZE;
+            grid[cell / SIZE][cell % SIZE] = rowId % SIZE + 1;
+        }
+        return true;
+    }
+
+    // Counts solutions, stopping once the limit is reached
+    public int countSolutions(int[][] grid, int limit) {
+        return run(grid, limit);
+    }
+
+    public boolean hasUniqueSolution(int[][] grid) {
+        return run(grid, 2) == 1;
+    }
+
+    private int run(int[][] grid, int limit) {
+        this.limit = limit;
+        found = 0;
+        givenCount = 0;
+
+        boolean consistent = true;
+        for (int cell = 0; cell < CELLS && consistent; cell++) {
+            int digit = grid[cell / SIZE][cell % SIZE];
+            if (digit == 0) continue;
+            if (digit < 1 || digit > SIZE) {
+                consistent = false;
+                break;
+            }
+            int start = rowStart[cell * SIZE + digit - 1];
+            // A column already covered means two givens claim the same constraint
+            for (int j = start, k = 0; k < 4; j = right[j], k++) {
+                if (right[left[column[j]]] != column[j]) consistent = false;
+            }
+            if (!consistent) break;
+            for (int j = start, k = 0; k < 4; j = right[j], k++) cover(column[j]);
+            givens[givenCount++] = start;
+        }
+
+        if (consistent) search(0);
+
+        // Restore the matrix in reverse order of covering
+        while (givenCount > 0) {
+            int start = givens[--givenCount];
+            for (int j = left[start], k = 0; k < 4; j = left[j], k++) uncover(column[j]);
+        }
+        return consistent ? found : 0;
+    }
+
+    private void search(int depth) {
+        if (right[ROOT] == ROOT) {
+            if (found++ == 0) {
+                System.arraycopy(solution, 0, firstSolution, 0, depth);
+                firstDepth = depth;
+            }
+            return;
+        }
+
+        // Branch on the column with the fewest remaining rows
+        int best = right[ROOT];
+        for (int c = right[best]; c != ROOT; c = right[c]) {
+            if (size[c] < size[best]) best = c;
+        }
+        if (size[best] == 0) return;
+
+        cover(best);
+        for (int r = down[best]; r != best && found < limit; r = down[r]) {
+            solution[depth] = rowOf[r];
+            for (int j = right[r]; j != r; j = right[j]) cover(column[j]);
+            search(depth + 1);
+            for (int j = left[r]; j != r; j = left[j]) uncover(column[j]);
+        }
+        uncover(best);
+    }
+
+    private void cover(int c) {
+        right[left[c]] = right[c];
+        left[right[c]] = left[c];
+        for (int i = down[c]; i != c; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                down[up[j]] = down[j];
+                up[down[j]] = up[j];
+                size[column[j]]--;
+            }
+        }
+    }
+
+    private void uncover(int c) {
+        for (int i = up[c]; i != c; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                size[column[j]]++;
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+        right[left[c]] = c;
+        left[right[c]] = c;
+    }
+}
@@ -0,0 +1,23 @@
+// Difficulty Bands
+// A puzzle's band is set by the hardest human technique needed to solve it
+// (see DifficultyRater), not by its clue count.
+enum Difficulty {
+    EASY(DifficultyRater.Technique.HIDDEN_SINGLE),
+    MEDIUM(DifficultyRater.Technique.BOX_LINE),
+    HARD(DifficultyRater.Technique.HIDDEN_PAIR),
+    EXPERT(DifficultyRater.Technique.GUESS);
+
+    // Hardest technique a puzzle in this band may require
+    final DifficultyRater.Technique ceiling;
+
+    Difficulty(DifficultyRater.Technique ceiling) {
+        this.ceiling = ceiling;
+    }
+
+    static Difficulty of(DifficultyRater.Technique hardest) {
+        for (Difficulty band : values()) {
+            if (hardest.compareTo(band.ceiling) <= 0) return band;
+        }
+        return EXPERT;
+    }
+}
@@ -0,0 +1,341 @@
+import java.util.*;
+
+// Human-Technique Difficulty Rater
+// Solves a puzzle the way a person would, always applying the easiest technique
+// that makes progress, and records the hardest technique it ever needed plus the
+// number of steps taken. Puzzles that stall before being solved need guessing.
+// All working state is preallocated, so one rater can screen thousands of
+// candidates per second.
+class DifficultyRater {
+    // Ordered from easiest to hardest
+    enum Technique {
+        NAKED_SINGLE,
+        HIDDEN_SINGLE,
+        POINTING,
+        BOX_LINE,
+        NAKED_PAIR,
+        HIDDEN_PAIR,
+        X_WING,
+        GUESS
+    }
+
+    static final class Rating {
+        final Technique hardest;
+        final int steps;
+
+        Rating(Technique hardest, int steps) {
+            this.hardest = hardest;
+            this.steps = steps;
+        }
+
+        Difficulty difficulty() {
+            return Difficulty.of(hardest);
+        }
+
+        @Override
+        public String toString() {
+            return difficulty() + " (" + hardest + ", " + steps + " steps)";
+        }
+    }
+
+    private final GridSpec spec;
+    private final int size;
+    private final int[][] units;
+
+    private final int[] cells;
+    private final long[] candidates;
+    // Scratch: positions of each digit within a unit, and of a digit across lines
+    private final long[] positions;
+    private final long[] lineMask;
+    private int empty;
+
+    public DifficultyRater() {
+        this(GridSpec.CLASSIC);
+    }
+
+    public DifficultyRater(GridSpec spec) {
+        this.spec = spec;
+        this.size = spec.size;
+        this.units = spec.units;
+        cells = new int[spec.cells];
+        candidates = new long[spec.cells];
+        positions = new long[size];
+        lineMask = new long[size];
+    }
+
+    public Rating rate(int[][] grid) {
+        if (!load(grid)) {
+            throw new IllegalArgumentException("Puzzle givens conflict");
+        }
+
+        Technique hardest = Technique.NAKED_SINGLE;
+        int steps = 0;
+        while (empty > 0) {
+            Technique used = step();
+            if (used == null) {
+                hardest = Technique.GUESS;
+                break;
+            }
+            steps++;
+            if (used.compareTo(hardest) > 0) hardest = used;
+        }
+        return new Rating(hardest, steps);
+    }
+
+    private boolean load(int[][] grid) {
+        Arrays.fill(cells, 0);
+        Arrays.fill(candidates, spec.allDigits);
+        empty = spec.cells;
+        for (int cell = 0; cell < spec.cells; cell++) {
+            int digit = grid[spec.rowOf[cell]][spec.colOf[cell]];
+            if (digit == 0) continue;
+            if ((candidates[cell] & (1L << (digit - 1))) == 0) return false;
+            place(cell, 1L << (digit - 1));
+        }
+        return true;
+    }
+
+    private void place(int cell, long bit) {
+        cells[cell] = Long.numberOfTrailingZeros(bit) + 1;
+        candidates[cell] = 0;
+        empty--;
+        eliminate(units[spec.rowOf[cell]], bit);
+        eliminate(units[size + spec.colOf[cell]], bit);
+        eliminate(units[2 * size + spec.boxOf[cell]], bit);
+    }
+
+    private void eliminate(int[] unit, long bits) {
+        for (int cell : unit) {
+            candidates[cell] &= ~bits;
+        }
+    }
+
+    // Applies one step of the easiest technique that makes progress; null if none does
+    private Technique step() {
+        if (nakedSingle()) return Technique.NAKED_SINGLE;
+        if (hiddenSingle()) return Technique.HIDDEN_SINGLE;
+        if (pointing()) return Technique.POINTING;
+        if (boxLine()) return Technique.BOX_LINE;
+        if (nakedPair()) return Technique.NAKED_PAIR;
+        if (hiddenPair()) return Technique.HIDDEN_PAIR;
+        if (xWing()) return Technique.X_WING;
+        return null;
+    }
+
+    // A cell with only one candidate left
+    private boolean nakedSingle() {
+        for (int cell = 0; cell < spec.cells; cell++) {
+            long c = candidates[cell];
+            if (cells[cell] == 0 && c != 0 && (c & (c - 1)) == 0) {
+                place(cell, c);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // A digit with only one possible cell in a unit
+    private boolean hiddenSingle() {
+        for (int[] unit : units) {
+            long once = 0, twice = 0;
+            for (int cell : unit) {
+                twice |= once & candidates[cell];
+                once |= candidates[cell];
+            }
+            long hidden = once & ~twice;
+            if (hidden == 0) continue;
+
+            long bit = hidden & -hidden;
+            for (int cell : unit) {
+                if ((candidates[cell] & bit) != 0) {
+                    place(cell, bit);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Candidates of a digit inside a box all on one row/column: clear it from the rest of that line
+    private boolean pointing() {
+        for (int box = 0; box < size; box++) {
+            int[] unit = units[2 * size + box];
+            long digits = 0;
+            for (int cell : unit) digits |= candidates[cell];
+
+            while (digits != 0) {
+                long bit = digits & -digits;
+                digits ^= bit;
+
+                int row = -1, col = -1;
+                boolean sameRow = true, sameCol = true;
+                for (int cell : unit) {
+                    if ((candidates[cell] & bit) == 0) continue;
+                    if (row < 0) {
+                        row = spec.rowOf[cell];
+                        col = spec.colOf[cell];
+                    } else {
+                        sameRow &= spec.rowOf[cell] == row;
+                        sameCol &= spec.colOf[cell] == col;
+                    }
+                }
+                if (sameRow && eliminateOutsideBox(units[row], box, bit)) return true;
+                if (sameCol && eliminateOutsideBox(units[size + col], box, bit)) return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean eliminateOutsideBox(int[] line, int box, long bit) {
+        boolean changed = false;
+        for (int cell : line) {
+            if (spec.boxOf[cell] != box && (candidates[cell] & bit) != 0) {
+                candidates[cell] &= ~bit;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    // Candidates of a digit on a row/column all inside one box: clear it from the rest of that box
+    private boolean boxLine() {
+        for (int line = 0; line < 2 * size; line++) {
+            int[] unit = units[line];
+            long digits = 0;
+            for (int cell : unit) digits |= candidates[cell];
+
+            while (digits != 0) {
+                long bit = digits & -digits;
+                digits ^= bit;
+
+                int box = -1;
+                boolean sameBox = true;
+                for (int cell : unit) {
+                    if ((candidates[cell] & bit) == 0) continue;
+                    if (box < 0) box = spec.boxOf[cell];
+                    else sameBox &= spec.boxOf[cell] == box;
+                }
+                if (!sameBox) continue;
+
+                boolean changed = false;
+                for (int cell : units[2 * size + box]) {
+                    boolean onLine = line < size ? spec.rowOf[cell] == line : spec.colOf[cell] == line - size;
+                    if (!onLine && (candidates[cell] & bit) != 0) {
+                        candidates[cell] &= ~bit;
+                        changed = true;
+                    }
+                }
+                if (changed) return true;
+            }
+        }
+        return false;
+    }
+
+    // Two cells of a unit sharing the same two candidates: clear both from the rest of the unit
+    private boolean nakedPair() {
+        for (int[] unit : units) {
+            for (int i = 0; i < size; i++) {
+                long pair = candidates[unit[i]];
+                if (Long.bitCount(pair) != 2) continue;
+                for (int j = i + 1; j < size; j++) {
+                    if (candidates[unit[j]] != pair) continue;
+
+                    boolean changed = false;
+                    for (int k = 0; k < size; k++) {
+                        int cell = unit[k];
+                        if (k != i && k != j && (candidates[cell] & pair) != 0) {
+                            candidates[cell] &= ~pair;
+                            changed = true;
+                        }
+                    }
+                    if (changed) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Two digits confined to the same two cells of a unit: clear other candidates from those cells
+    private boolean hiddenPair() {
+        for (int[] unit : units) {
+            Arrays.fill(positions, 0);
+            for (int k = 0; k < size; k++) {
+                long c = candidates[unit[k]];
+                while (c != 0) {
+                    long bit = c & -c;
+                    c ^= bit;
+                    positions[Long.numberOfTrailingZeros(bit)] |= 1L << k;
+                }
+            }
+
+            for (int d1 = 0; d1 < size; d1++) {
+                if (Long.bitCount(positions[d1]) != 2) continue;
+                for (int d2 = d1 + 1; d2 < size; d2++) {
+                    if (positions[d2] != positions[d1]) continue;
+
+                    long keep = (1L << d1) | (1L << d2);
+                    boolean changed = false;
+                    long where = positions[d1];
+                    while (where != 0) {
+                        int k = Long.numberOfTrailingZeros(where);
+                        where &= where - 1;
+                        int cell = unit[k];
+                        if ((candidates[cell] & ~keep) != 0) {
+                            candidates[cell] &= keep;
+                            changed = true;
+                        }
+                    }
+                    if (changed) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // A digit confined to the same two columns on two rows (or vice versa):
+    // clear it from those columns on every other row
+    private boolean xWing() {
+        for (int d = 0; d < size; d++) {
+            long bit = 1L << d;
+            if (xWing(bit, 0) || xWing(bit, size)) return true;
+        }
+        return false;
+    }
+
+    // base = 0 scans rows and eliminates along columns; base = size the reverse
+    private boolean xWing(long bit, int base) {
+        int cross = size - base;
+        for (int line = 0; line < size; line++) {
+            long mask = 0;
+            int[] unit = units[base + line];
+            for (int k = 0; k < size; k++) {
+                if ((candidates[unit[k]] & bit) != 0) mask |= 1L << k;
+            }
+            lineMask[line] = mask;
+        }
+
+        for (int a = 0; a < size; a++) {
+            if (Long.bitCount(lineMask[a]) != 2) continue;
+            for (int b = a + 1; b < size; b++) {
+                if (lineMask[b] != lineMask[a]) continue;
+
+                boolean changed = false;
+                long where = lineMask[a];
+                while (where != 0) {
+                    int k = Long.numberOfTrailingZeros(where);
+                    where &= where - 1;
+                    // Position k along a row is column k (and along a column, row k)
+                    for (int cell : units[cross + k]) {
+                        int line = base == 0 ? spec.rowOf[cell] : spec.colOf[cell];
+                        if (line != a && line != b && (candidates[cell] & bit) != 0) {
+                            candidates[cell] &= ~bit;
+                            changed = true;
+                        }
+                    }
+                }
+                if (changed) return true;
+            }
+        }
+        return false;
+    }
+}
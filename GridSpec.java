@@ -0,0 +1,81 @@
+// Board Geometry
+// Describes an n^2 x n^2 Sudoku (n = subgrid size): 9x9 for n = 3, 16x16 for
+// n = 4, 25x25 for n = 5. Cells are indexed row * size + col, and the lookup
+// tables are shared by every solver, generator and board of the same size.
+class GridSpec {
+    // Digits are tracked as bits of a long, so at most 64 per unit
+    static final int MAX_SUBGRID = 8;
+
+    static final GridSpec CLASSIC = new GridSpec(3);
+    private static final GridSpec[] SPECS = new GridSpec[MAX_SUBGRID + 1];
+
+    static {
+        SPECS[3] = CLASSIC;
+    }
+
+    final int subgrid;
+    final int size;
+    final int cells;
+    final long allDigits;
+
+    final int[] rowOf;
+    final int[] colOf;
+    final int[] boxOf;
+    // 3 * size units (rows, then columns, then boxes), each listing its cells
+    final int[][] units;
+
+    private GridSpec(int subgrid) {
+        this.subgrid = subgrid;
+        this.size = subgrid * subgrid;
+        this.cells = size * size;
+        this.allDigits = size == 64 ? -1L : (1L << size) - 1;
+
+        rowOf = new int[cells];
+        colOf = new int[cells];
+        boxOf = new int[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            int row = cell / size;
+            int col = cell % size;
+            rowOf[cell] = row;
+            colOf[cell] = col;
+            boxOf[cell] = (row / subgrid) * subgrid + col / subgrid;
+        }
+
+        units = new int[3 * size][size];
+        int[] filled = new int[3 * size];
+        for (int cell = 0; cell < cells; cell++) {
+            int[] owners = { rowOf[cell], size + colOf[cell], 2 * size + boxOf[cell] };
+            for (int unit : owners) {
+                units[unit][filled[unit]++] = cell;
+            }
+        }
+    }
+
+    static synchronized GridSpec of(int subgrid) {
+        if (subgrid < 2 || subgrid > MAX_SUBGRID) {
+            throw new IllegalArgumentException("Unsupported subgrid size: " + subgrid);
+        }
+        if (SPECS[subgrid] == null) {
+            SPECS[subgrid] = new GridSpec(subgrid);
+        }
+        return SPECS[subgrid];
+    }
+
+    // Spec matching a square int[][] grid (9x9, 16x16, ...)
+    static GridSpec forGrid(int[][] grid) {
+        int subgrid = (int) Math.round(Math.sqrt(grid.length));
+        if (subgrid * subgrid != grid.length) {
+            throw new IllegalArgumentException("Grid side is not a perfect square: " + grid.length);
+        }
+        return of(subgrid);
+    }
+
+    int cell(int row, int col) {
+        return row * size + col;
+    }
+
+    @Override
+    public String toString() {
+        return size + "x" + size;
+    }
+}
@@ -0,0 +1,192 @@
+import java.lang.management.*;
+
+// Allocation-Free Grid Validator
+// Checks a full or partial grid by OR-ing each unit's digits into a bitmask:
+// a digit whose bit is already set is a duplicate. Instead of a bare boolean
+// the validator fills in a Result it owns and reuses, listing the conflicting
+// units and cells, so validating never allocates. Like BitmaskSolver, use one
+// validator per thread; a Result is overwritten by the next validate().
+class GridValidator {
+    static final class Result {
+        private final GridSpec spec;
+        private final int[] units;
+        private final int[] cells;
+        private final boolean[] marked;
+        private int unitCount;
+        private int cellCount;
+        private int filled;
+        private int outOfRange;
+
+        private Result(GridSpec spec) {
+            this.spec = spec;
+            units = new int[3 * spec.size];
+            cells = new int[spec.cells];
+            marked = new boolean[spec.cells];
+        }
+
+        private void reset() {
+            for (int i = 0; i < cellCount; i++) marked[cells[i]] = false;
+            unitCount = 0;
+            cellCount = 0;
+            filled = 0;
+            outOfRange = 0;
+        }
+
+        private void markCell(int cell) {
+            if (marked[cell]) return;
+            marked[cell] = true;
+            cells[cellCount++] = cell;
+        }
+
+        // No duplicates and no digits outside 1..size (blanks allowed)
+        public boolean isValid() {
+            return cellCount == 0;
+        }
+
+        public boolean isComplete() {
+            return filled == spec.cells;
+        }
+
+        public boolean isSolved() {
+            return isComplete() && isValid();
+        }
+
+        public int filledCount() {
+            return filled;
+        }
+
+        public int outOfRangeCount() {
+            return outOfRange;
+        }
+
+        // Units holding a duplicate, numbered as in GridSpec.units (rows, columns, boxes)
+        public int conflictUnitCount() {
+            return unitCount;
+        }
+
+        public int conflictUnit(int i) {
+            return units[i];
+        }
+
+        // Cells holding a duplicated or out-of-range digit
+        public int conflictCellCount() {
+            return cellCount;
+        }
+
+        public int conflictCell(int i) {
+            return cells[i];
+        }
+
+        public boolean isConflict(int cell) {
+            return marked[cell];
+        }
+
+        public String describeUnit(int unit) {
+            String[] kinds = {"row", "column", "box"};
+            return kinds[unit / spec.size] + " " + (unit % spec.size + 1);
+        }
+
+        @Override
+        public String toString() {
+            if (isValid()) return isComplete() ? "solved" : "valid, " + filled + "/" + spec.cells + " filled";
+            StringBuilder text = new StringBuilder(cellCount + " conflicting cells");
+            for (int i = 0; i < unitCount; i++) {
+                text.append(i == 0 ? " in " : ", ").append(describeUnit(units[i]));
+            }
+            if (outOfRange > 0) text.append(", ").append(outOfRange).append(" out of range");
+            return text.toString();
+        }
+    }
+
+    private final GridSpec spec;
+    private final Result result;
+    // Flat copy of the grid being checked, so unit scans index one array
+    private final int[] digits;
+
+    public GridValidator() {
+        this(GridSpec.CLASSIC);
+    }
+
+    public GridValidator(GridSpec spec) {
+        this.spec = spec;
+        this.result = new Result(spec);
+        this.digits = new int[spec.cells];
+    }
+
+    public Result validate(int[][] grid) {
+        if (grid.length != spec.size) {
+            throw new IllegalArgumentException("Expected a " + spec + " grid");
+        }
+        result.reset();
+
+        for (int row = 0, cell = 0; row < spec.size; row++) {
+            int[] line = grid[row];
+            for (int col = 0; col < spec.size; col++, cell++) {
+                int digit = line[col];
+                if (digit != 0) {
+                    result.filled++;
+                    if (digit < 0 || digit > spec.size) {
+                        result.outOfRange++;
+                        result.markCell(cell);
+                        digit = 0;
+                    }
+                }
+                digits[cell] = digit;
+            }
+        }
+
+        for (int unit = 0; unit < spec.units.length; unit++) {
+            long seen = 0, repeated = 0;
+            for (int cell : spec.units[unit]) {
+                // Blanks get no bit: at 64x64 every bit is a digit, 64 being bit 63
+                int digit = digits[cell];
+                long bit = digit == 0 ? 0 : 1L << (digit - 1);
+                repeated |= seen & bit;
+                seen |= bit;
+            }
+            if (repeated == 0) continue;
+
+            result.units[result.unitCount++] = unit;
+            for (int cell : spec.units[unit]) {
+                int digit = digits[cell];
+                if (digit != 0 && (repeated & (1L << (digit - 1))) != 0) result.markCell(cell);
+            }
+        }
+        return result;
+    }
+
+    public boolean isValidSolution(int[][] grid) {
+        return validate(grid).isSolved();
+    }
+
+    // Allocation check: bytes allocated per validate() on this thread after warm-up
+    public static void main(String[] args) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        int calls = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        GridValidator validator = new GridValidator();
+        int[][] solved = PuzzleGenerator.generate();
+        new SudokuSolver().solve(solved);
+        int[][] broken = new int[solved.length][];
+        for (int i = 0; i < solved.length; i++) broken[i] = solved[i].clone();
+        broken[0][0] = broken[0][1];
+
+        long sink = 0;
+        for (int i = 0; i < 100_000; i++) {
+            sink += validator.validate(i % 2 == 0 ? solved : broken).conflictCellCount();
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            sink += validator.validate(i % 2 == 0 ? solved : broken).conflictCellCount();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        System.out.println("Broken grid: " + validator.validate(broken));
+        System.out.printf("%d validations, %.1f ns each, %.4f bytes allocated per call (sink %d)%n",
+                calls, (double) elapsed / calls, (double) allocated / calls, sink);
+    }
+}
@@ -0,0 +1,88 @@
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+// Memory-Mapped Puzzle Reader
+// Walks a one-puzzle-per-line file through read-only mapped windows and hands
+// out each record as (window, offset), so the solver decodes straight from the
+// page cache with no String, BufferedReader or int[][] in between. Windows are
+// remapped at the start of the record that crosses their end, which keeps
+// multi-gigabyte files within the 2 GB limit of a single mapping.
+class MappedPuzzleReader implements Closeable {
+    static final long DEFAULT_WINDOW = 256L << 20;
+
+    private final FileChannel channel;
+    private final int recordLength;
+    private final long fileSize;
+    private final long windowSize;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int position;
+    private int recordOffset;
+    private long line;
+
+    public MappedPuzzleReader(Path path, int recordLength) throws IOException {
+        this(path, recordLength, DEFAULT_WINDOW);
+    }
+
+    public MappedPuzzleReader(Path path, int recordLength, long windowSize) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.recordLength = recordLength;
+        this.fileSize = channel.size();
+        this.windowSize = Math.max(windowSize, recordLength + 2);
+        map(0);
+    }
+
+    // Window holding the current record; stays valid after later calls to next()
+    public MappedByteBuffer buffer() {
+        return window;
+    }
+
+    // Offset of the current record within buffer()
+    public int offset() {
+        return recordOffset;
+    }
+
+    // Advances to the next non-blank line; false at end of file
+    public boolean next() throws IOException {
+        while (true) {
+            int start = position;
+            int limit = window.limit();
+            int end = start;
+            while (end < limit && window.get(end) != '\n') end++;
+
+            boolean atEof = windowStart + limit == fileSize;
+            if (end == limit && !atEof) {
+                // Record crosses the window end: remap starting at it
+                if (start == 0) throw new IOException("Line " + (line + 1) + " is longer than a mapping window");
+                map(windowStart + start);
+                continue;
+            }
+            if (start == end && end == limit) return false;
+
+            position = end < limit ? end + 1 : end;
+            int length = end - start;
+            if (length > 0 && window.get(end - 1) == '\r') length--;
+            line++;
+            if (length == 0) continue;
+            if (length != recordLength) {
+                throw new IOException("Line " + line + ": expected " + recordLength + " characters, got " + length);
+            }
+            recordOffset = start;
+            return true;
+        }
+    }
+
+    private void map(long start) throws IOException {
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, fileSize - start));
+        position = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
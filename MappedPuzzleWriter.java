@@ -0,0 +1,61 @@
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+// Memory-Mapped Puzzle Writer
+// Output records are fixed width (one line of recordLength characters), so
+// record i always lands at byte i * (recordLength + 1). The file is written
+// through read-write mapped windows of whole records; workers store into
+// disjoint records of a window concurrently, and close() trims the file to
+// the records actually written.
+class MappedPuzzleWriter implements Closeable {
+    private final FileChannel channel;
+    private final int lineLength;
+    private final long recordsPerWindow;
+
+    private MappedByteBuffer window;
+    private long windowIndex = -1;
+    private long records;
+
+    public MappedPuzzleWriter(Path path, int recordLength, long recordsPerWindow) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.lineLength = recordLength + 1;
+        this.recordsPerWindow = recordsPerWindow;
+    }
+
+    public int lineLength() {
+        return lineLength;
+    }
+
+    // Window holding the given record, mapping it (and growing the file) on first use.
+    // Callers must request records in non-decreasing window order.
+    public synchronized MappedByteBuffer buffer(long record) throws IOException {
+        long index = record / recordsPerWindow;
+        if (index != windowIndex) {
+            if (window != null) window.force();
+            window = channel.map(FileChannel.MapMode.READ_WRITE,
+                    index * recordsPerWindow * lineLength, recordsPerWindow * lineLength);
+            windowIndex = index;
+        }
+        return window;
+    }
+
+    // Offset of the given record within buffer(record)
+    public int offset(long record) {
+        return (int) (record % recordsPerWindow) * lineLength;
+    }
+
+    // Marks records [0, count) as written; the file is trimmed to them on close
+    public synchronized void commit(long count) {
+        records = Math.max(records, count);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (window != null) window.force();
+        channel.truncate(records * lineLength);
+        channel.close();
+    }
+}
@@ -0,0 +1,344 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// Parallel Fork/Join Solver
+// Expands the top of the MRV search tree on the calling task and forks every
+// branch down to splitDepth onto a ForkJoinPool; below that, each subtree is
+// searched sequentially by its own BitmaskSolver copy. Idle workers steal the
+// remaining subtrees, and a shared stop flag cancels all of them as soon as one
+// finds a solution (or the solution count reaches its limit).
+//
+// race() instead runs several RESTARTS searches of the whole puzzle, each with
+// its own random stream, and takes whichever finishes first.
+//
+// A caller's cancel flag and deadline reach every task, and the statistics of
+// all subtree searches are summed per call for SolverMetrics.
+class ParallelSolver {
+    private final GridSpec spec;
+    private final ForkJoinPool pool;
+    private final int splitDepth;
+    private AtomicBoolean cancelFlag;
+    private boolean hasDeadline;
+    private long deadline;
+    // Outcome and statistics of the last call
+    private boolean aborted;
+    private long nodes;
+    private long backtracks;
+    private int maxDepth;
+    private long propagations;
+    private long candidateChecks;
+
+    public ParallelSolver() {
+        this(GridSpec.CLASSIC);
+    }
+
+    public ParallelSolver(GridSpec spec) {
+        this(spec, ForkJoinPool.commonPool(), 3);
+    }
+
+    public ParallelSolver(GridSpec spec, ForkJoinPool pool, int splitDepth) {
+        this.spec = spec;
+        this.pool = pool;
+        this.splitDepth = splitDepth;
+    }
+
+    // Flag another thread sets to abandon the call in progress; null for none
+    public void setStopFlag(AtomicBoolean cancelFlag) {
+        this.cancelFlag = cancelFlag;
+    }
+
+    // Abandons any call still running at the given System.nanoTime()
+    public void setDeadline(long deadlineNanos) {
+        this.hasDeadline = true;
+        this.deadline = deadlineNanos;
+    }
+
+    public void clearDeadline() {
+        this.hasDeadline = false;
+    }
+
+    // True if the last call gave up (cancelled or past the deadline) rather than
+    // finding its answer; a count is then only a lower bound
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    // Summed over every subtree searched by the last call
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    // Deepest search of any one task
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getPropagations() {
+        return propagations;
+    }
+
+    public long getCandidateChecks() {
+        return candidateChecks;
+    }
+
+    // Solves the grid in place; returns false if the givens conflict or no solution exists
+    public boolean solve(int[][] grid) {
+        Search search = new Search();
+        BitmaskSolver root = new BitmaskSolver(spec);
+        if (!root.load(grid)) {
+            search.finish(true);
+            return false;
+        }
+
+        AtomicReference<BitmaskSolver> winner = new AtomicReference<>();
+        pool.invoke(new SolveTask(root, 0, search, winner));
+
+        BitmaskSolver solved = winner.get();
+        search.finish(solved != null);
+        if (solved == null) return false;
+        solved.store(grid);
+        return true;
+    }
+
+    // Solves the grid in place with one randomized restart search per racer,
+    // split off the given seed; the first to finish stops the others
+    public boolean race(int[][] grid, long seed, int racers) {
+        Search search = new Search();
+        BitmaskSolver root = new BitmaskSolver(spec);
+        if (!root.load(grid)) {
+            search.finish(true);
+            return false;
+        }
+
+        AtomicReference<BitmaskSolver> winner = new AtomicReference<>();
+        SplittableRandom random = new SplittableRandom(seed);
+        List<RaceTask> tasks = new ArrayList<>(racers);
+        for (int i = 0; i < racers; i++) {
+            BitmaskSolver racer = root.copy();
+            racer.setStrategy(BitmaskSolver.Strategy.RESTARTS);
+            racer.setRandom(random.split());
+            search.arm(racer);
+            tasks.add(new RaceTask(racer, search, winner));
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+
+        BitmaskSolver solved = winner.get();
+        search.finish(solved != null);
+        if (solved == null) return false;
+        solved.store(grid);
+        return true;
+    }
+
+    // Counts solutions across all subtrees, stopping once the limit is reached
+    public long countSolutions(int[][] grid, long limit) {
+        Search search = new Search();
+        BitmaskSolver root = new BitmaskSolver(spec);
+        if (!root.load(grid)) {
+            search.finish(true);
+            return 0;
+        }
+
+        AtomicLong found = new AtomicLong();
+        long count = Math.min(pool.invoke(new CountTask(root, 0, limit, search, found)), limit);
+        search.finish(count >= limit);
+        return count;
+    }
+
+    // State shared by the tasks of one call: its stop flag (a solution was found,
+    // the limit reached, or the call gave up) and the statistics of its subtrees
+    private final class Search {
+        final AtomicBoolean stop = new AtomicBoolean();
+        // Set once the caller's cancel flag or the deadline stopped a task
+        final AtomicBoolean gaveUp = new AtomicBoolean();
+        final LongAdder nodes = new LongAdder();
+        final LongAdder backtracks = new LongAdder();
+        final AtomicInteger maxDepth = new AtomicInteger();
+        final LongAdder propagations = new LongAdder();
+        final LongAdder candidateChecks = new LongAdder();
+
+        // True if the task about to start should not; trips the stop flag when
+        // the call is cancelled or out of time
+        boolean halted() {
+            if (stop.get()) return true;
+            if (cancelFlag != null && cancelFlag.get() || hasDeadline && System.nanoTime() - deadline >= 0) {
+                gaveUp.set(true);
+                stop.set(true);
+                return true;
+            }
+            return false;
+        }
+
+        // Hands the call's flags and deadline to a solver that searches on its own
+        void arm(BitmaskSolver solver) {
+            solver.setStopFlag(stop);
+            solver.setCancelFlag(cancelFlag);
+            if (hasDeadline) solver.setDeadline(deadline);
+        }
+
+        // Adds the statistics of a finished search; if the caller's cancel flag
+        // or the deadline cut it short, the rest of the call stops too
+        void add(BitmaskSolver solver) {
+            nodes.add(solver.getNodes());
+            backtracks.add(solver.getBacktracks());
+            maxDepth.accumulateAndGet(solver.getMaxDepth(), Math::max);
+            propagations.add(solver.getPropagations());
+            candidateChecks.add(solver.getCandidateChecks());
+            if (solver.isBudgetExceeded() || solver.isAborted() && cancelFlag != null && cancelFlag.get()) {
+                gaveUp.set(true);
+                stop.set(true);
+            }
+        }
+
+        // Publishes outcome and statistics of the call; answered is false when
+        // it ended without its answer (no solution found, count below the limit)
+        void finish(boolean answered) {
+            aborted = !answered && gaveUp.get();
+            ParallelSolver.this.nodes = nodes.sum();
+            ParallelSolver.this.backtracks = backtracks.sum();
+            ParallelSolver.this.maxDepth = maxDepth.get();
+            ParallelSolver.this.propagations = propagations.sum();
+            ParallelSolver.this.candidateChecks = candidateChecks.sum();
+        }
+    }
+
+    // Children of a node: one copy of the position per candidate of the MRV cell.
+    // Returns null if the node is already solved (cell < 0) and an empty list if it is dead.
+    private static List<BitmaskSolver> expand(BitmaskSolver node) {
+        if (!node.propagate()) return Collections.emptyList();
+        int cell = node.selectCell();
+        if (cell < 0) return null;
+
+        List<BitmaskSolver> children = new ArrayList<>();
+        long candidates = node.candidates(cell);
+        while (candidates != 0) {
+            long bit = candidates & -candidates;
+            candidates ^= bit;
+
+            BitmaskSolver child = node.copy();
+            child.assign(cell, bit);
+            children.add(child);
+        }
+        return children;
+    }
+
+    private class SolveTask extends RecursiveAction {
+        private final BitmaskSolver node;
+        private final int depth;
+        private final Search search;
+        private final AtomicReference<BitmaskSolver> winner;
+
+        SolveTask(BitmaskSolver node, int depth, Search search, AtomicReference<BitmaskSolver> winner) {
+            this.node = node;
+            this.depth = depth;
+            this.search = search;
+            this.winner = winner;
+        }
+
+        @Override
+        protected void compute() {
+            if (search.halted()) return;
+
+            if (depth >= splitDepth) {
+                search.arm(node);
+                boolean solved = node.solve();
+                search.add(node);
+                if (solved) finish(node);
+                return;
+            }
+
+            List<BitmaskSolver> children = expand(node);
+            if (children == null) {
+                finish(node);
+                return;
+            }
+            List<SolveTask> tasks = new ArrayList<>(children.size());
+            for (BitmaskSolver child : children) {
+                tasks.add(new SolveTask(child, depth + 1, search, winner));
+            }
+            invokeAll(tasks);
+        }
+
+        private void finish(BitmaskSolver solved) {
+            if (winner.compareAndSet(null, solved)) search.stop.set(true);
+        }
+    }
+
+    private static class RaceTask extends RecursiveAction {
+        private final BitmaskSolver racer;
+        private final Search search;
+        private final AtomicReference<BitmaskSolver> winner;
+
+        RaceTask(BitmaskSolver racer, Search search, AtomicReference<BitmaskSolver> winner) {
+            this.racer = racer;
+            this.search = search;
+            this.winner = winner;
+        }
+
+        @Override
+        protected void compute() {
+            if (search.halted()) return;
+            boolean solved = racer.solve();
+            search.add(racer);
+            // Every racer searches the whole puzzle, so any one of them failing
+            // without being stopped proves there is no solution
+            if (solved && winner.compareAndSet(null, racer) || !racer.isAborted()) search.stop.set(true);
+        }
+    }
+
+    private class CountTask extends RecursiveTask<Long> {
+        private final BitmaskSolver node;
+        private final int depth;
+        private final long limit;
+        private final Search search;
+        private final AtomicLong found;
+
+        CountTask(BitmaskSolver node, int depth, long limit, Search search, AtomicLong found) {
+            this.node = node;
+            this.depth = depth;
+            this.limit = limit;
+            this.search = search;
+            this.found = found;
+        }
+
+        @Override
+        protected Long compute() {
+            if (search.halted()) return 0L;
+
+            if (depth >= splitDepth) {
+                search.arm(node);
+                long count = node.countSolutions(limit);
+                search.add(node);
+                return record(count);
+            }
+
+            List<BitmaskSolver> children = expand(node);
+            if (children == null) return record(1);
+
+            List<CountTask> tasks = new ArrayList<>(children.size());
+            for (BitmaskSolver child : children) {
+                tasks.add(new CountTask(child, depth + 1, limit, search, found));
+            }
+            long total = 0;
+            for (CountTask task : invokeAll(tasks)) {
+                total += task.join();
+            }
+            return total;
+        }
+
+        // Publishes a leaf count and trips the stop flag once the limit is reached
+        private long record(long count) {
+            if (found.addAndGet(count) >= limit) search.stop.set(true);
+            return count;
+        }
+    }
+}
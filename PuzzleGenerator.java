@@ -1,63 +1,186 @@
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 // Puzzle Generator
+// An instance owns its random stream, solvers and scratch arrays, so
+// generators on different threads share nothing; a seeded one reproduces the
+// same puzzles. The static methods use one instance per thread and size.
 class PuzzleGenerator {
-    private static final int SIZE = 9;
-    private static final int SUBGRID = 3;
-    private static Random random = new Random();
+    private static final ThreadLocal<PuzzleGenerator[]> PER_THREAD =
+            ThreadLocal.withInitial(() -> new PuzzleGenerator[GridSpec.MAX_SUBGRID + 1]);
+
+    private final GridSpec spec;
+    private final SplittableRandom random;
+    private final BitmaskSolver filler;
+    private final BitmaskSolver counter;
+    private final int[] digits;
+    private final int[] order;
+    private final int[][] solution;
+    private DifficultyRater rater;
+
+    public PuzzleGenerator(GridSpec spec) {
+        this(spec, ThreadLocalRandom.current().nextLong());
+    }
+
+    public PuzzleGenerator(GridSpec spec, long seed) {
+        this.spec = spec;
+        this.random = new SplittableRandom(seed);
+        this.filler = new BitmaskSolver(spec);
+        this.counter = new BitmaskSolver(spec);
+        this.digits = new int[spec.size];
+        this.order = new int[spec.cells];
+        this.solution = new int[spec.size][spec.size];
+        for (int i = 0; i < spec.size; i++) digits[i] = i + 1;
+        for (int i = 0; i < spec.cells; i++) order[i] = i;
+    }
+
+    // The calling thread's generator for the spec
+    static PuzzleGenerator forThread(GridSpec spec) {
+        PuzzleGenerator[] generators = PER_THREAD.get();
+        PuzzleGenerator generator = generators[spec.subgrid];
+        if (generator == null) {
+            generator = new PuzzleGenerator(spec);
+            generators[spec.subgrid] = generator;
+        }
+        return generator;
+    }
+
+    public GridSpec getSpec() {
+        return spec;
+    }
 
     public static int[][] generate() {
-        int[][] grid = new int[SIZE][SIZE];
-        fillDiagonal(grid);
-        solve(grid);
-        remove(grid, 40);
+        return generate(GridSpec.CLASSIC);
+    }
+
+    public static Board generateBoard(GridSpec spec) {
+        return forThread(spec).nextBoard();
+    }
+
+    // Same, but null if completing the grid runs past the options' bounds
+    public static Board generateBoard(GridSpec spec, SolveOptions options) {
+        return forThread(spec).nextBoard(options);
+    }
+
+    public static int[][] generate(GridSpec spec) {
+        return forThread(spec).next();
+    }
+
+    // Minimal puzzle with exactly one solution: each clue removal is kept only
+    // if a count-to-2 search still finds a single solution
+    public static int[][] generateUnique() {
+        return generateUnique(GridSpec.CLASSIC);
+    }
+
+    public static int[][] generateUnique(GridSpec spec) {
+        return forThread(spec).nextUnique();
+    }
+
+    // Unique puzzle in the requested band: too-hard puzzles get clues back from
+    // the solution until they rate down to it, too-easy ones are regenerated
+    public static int[][] generate(Difficulty target) {
+        return generate(GridSpec.CLASSIC, target);
+    }
+
+    public static int[][] generate(GridSpec spec, Difficulty target) {
+        return forThread(spec).next(target);
+    }
+
+    public int[][] next() {
+        int[][] grid = new int[spec.size][spec.size];
+        fillSolved(grid);
+        remove(grid, spec.cells * 40 / 81);
+        return grid;
+    }
+
+    public Board nextBoard() {
+        return Board.fromGrid(next());
+    }
+
+    public Board nextBoard(SolveOptions options) {
+        int[][] grid = new int[spec.size][spec.size];
+        options.applyTo(filler, System.nanoTime());
+        try {
+            if (!fillSolved(grid)) return null;
+        } finally {
+            SolveOptions.UNBOUNDED.applyTo(filler, 0);
+        }
+        remove(grid, spec.cells * 40 / 81);
+        return Board.fromGrid(grid);
+    }
+
+    public int[][] nextUnique() {
+        int[][] grid = new int[spec.size][spec.size];
+        fillSolved(grid);
+        removeUnique(grid);
         return grid;
     }
-    
-    private static void fillDiagonal(int[][] grid) {
-        for (int i = 0; i < SIZE; i += SUBGRID) fillBox(grid, i, i);
+
+    public int[][] next(Difficulty target) {
+        if (rater == null) rater = new DifficultyRater(spec);
+        while (true) {
+            fillSolved(solution);
+            int[][] puzzle = new int[spec.size][];
+            for (int i = 0; i < spec.size; i++) puzzle[i] = solution[i].clone();
+            removeUnique(puzzle);
+
+            Difficulty band = rater.rate(puzzle).difficulty();
+            while (band.compareTo(target) > 0) {
+                int r, c;
+                do {
+                    r = random.nextInt(spec.size);
+                    c = random.nextInt(spec.size);
+                } while (puzzle[r][c] != 0);
+                puzzle[r][c] = solution[r][c];
+                band = rater.rate(puzzle).difficulty();
+            }
+            if (band == target) return puzzle;
+        }
+    }
+
+    // Random boxes on the diagonal (they share no unit), completed by the engine;
+    // false only if a bound stopped it
+    private boolean fillSolved(int[][] grid) {
+        for (int[] row : grid) Arrays.fill(row, 0);
+        for (int i = 0; i < spec.size; i += spec.subgrid) fillBox(grid, i, i);
+        return filler.solve(grid);
     }
 
-    private static void fillBox(int[][] grid, int r, int c) {
-        ArrayList<Integer> nums = new ArrayList<>();
-        for (int i = 1; i <= 9; i++) nums.add(i);
-        Collections.shuffle(nums);
+    private void fillBox(int[][] grid, int r, int c) {
+        shuffle(digits);
         int k = 0;
-        for (int i = 0; i < SUBGRID; i++)
-            for (int j = 0; j < SUBGRID; j++)
-                grid[r + i][c + j] = nums.get(k++);
-    }
-
-    private static boolean solve(int[][] grid) {
-        for (int r = 0; r < SIZE; r++)
-            for (int c = 0; c < SIZE; c++)
-                if (grid[r][c] == 0)
-                    for (int n = 1; n <= 9; n++)
-                        if (valid(grid, r, c, n)) {
-                            grid[r][c] = n;
-                            if (solve(grid)) return true;
-                            grid[r][c] = 0;
-                        }
-        return true;
-    }
-
-    private static void remove(int[][] grid, int count) {
-        while (count-- > 0) {
-            int r = random.nextInt(SIZE);
-            int c = random.nextInt(SIZE);
-            grid[r][c] = 0;
+        for (int i = 0; i < spec.subgrid; i++)
+            for (int j = 0; j < spec.subgrid; j++)
+                grid[r + i][c + j] = digits[k++];
+    }
+
+    // Fisher-Yates; the arrays only ever hold permutations, so reshuffling in place is fine
+    private void shuffle(int[] values) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = values[i];
+            values[i] = values[j];
+            values[j] = t;
         }
     }
 
-    private static boolean valid(int[][] g, int r, int c, int n) {
-        for (int i = 0; i < SIZE; i++)
-            if (g[r][i] == n || g[i][c] == n) return false;
-        int sr = (r / SUBGRID) * SUBGRID;
-        int sc = (c / SUBGRID) * SUBGRID;
-        for (int i = sr; i < sr + SUBGRID; i++)
-            for (int j = sc; j < sc + SUBGRID; j++)
-                if (g[i][j] == n) return false;
-        return true;
+    private void remove(int[][] grid, int count) {
+        while (count > 0) {
+            int r = random.nextInt(grid.length);
+            int c = random.nextInt(grid.length);
+            if (grid[r][c] != 0) {
+                grid[r][c] = 0;
+                count--;
+            }
+        }
     }
-}
 
+    private void removeUnique(int[][] grid) {
+        shuffle(order);
+        for (int cell : order) {
+            int r = spec.rowOf[cell], c = spec.colOf[cell], n = grid[r][c];
+            grid[r][c] = 0;
+            if (!counter.load(grid) || counter.countSolutions(2) != 1) grid[r][c] = n;
+        }
+    }
+}
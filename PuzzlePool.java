@@ -0,0 +1,172 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// Pre-generated Puzzle Pool
+// Keeps a bounded queue of ready puzzles per difficulty band so a request is a
+// single poll(). When a band drops to its low-water mark, a background worker
+// refills it up to the high-water mark. Hit/miss counts and refill latency are
+// tracked so the marks can be sized for the peak request rate.
+class PuzzlePool {
+    private final GridSpec spec;
+    private final int lowWater;
+    private final int highWater;
+    private final EnumMap<Difficulty, BlockingQueue<Board>> pools = new EnumMap<>(Difficulty.class);
+    private final EnumMap<Difficulty, AtomicBoolean> refilling = new EnumMap<>(Difficulty.class);
+    private final ExecutorService workers;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder generateNanos = new LongAdder();
+    private final AtomicLong maxGenerateNanos = new AtomicLong();
+    private final LongAdder refills = new LongAdder();
+    private final LongAdder refillNanos = new LongAdder();
+
+    public PuzzlePool() {
+        this(GridSpec.CLASSIC, 4, 16, 2);
+    }
+
+    public PuzzlePool(GridSpec spec, int lowWater, int highWater, int threads) {
+        if (lowWater < 0 || highWater <= lowWater) {
+            throw new IllegalArgumentException("Need 0 <= lowWater < highWater");
+        }
+        this.spec = spec;
+        this.lowWater = lowWater;
+        this.highWater = highWater;
+        for (Difficulty band : Difficulty.values()) {
+            pools.put(band, new ArrayBlockingQueue<>(highWater));
+            refilling.put(band, new AtomicBoolean());
+        }
+        this.workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "puzzle-pool-refill");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    public GridSpec getSpec() {
+        return spec;
+    }
+
+    // Starts filling every band in the background
+    public PuzzlePool prefill() {
+        for (Difficulty band : Difficulty.values()) {
+            scheduleRefill(band);
+        }
+        return this;
+    }
+
+    // Ready puzzle, or null on a miss (a refill is scheduled either way)
+    public Board poll(Difficulty band) {
+        Board puzzle = next(band);
+        if (puzzle != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return puzzle;
+    }
+
+    // Another ready puzzle for a request poll() already counted, e.g. in place
+    // of one the caller turned down; null if the band is empty. Not counted.
+    public Board pollAgain(Difficulty band) {
+        return next(band);
+    }
+
+    // Ready puzzle, generating one on the calling thread on a miss
+    public Board take(Difficulty band) {
+        Board puzzle = poll(band);
+        return puzzle != null ? puzzle : generate(band);
+    }
+
+    // Fresh puzzle generated on the calling thread, bypassing the queue, for a
+    // request poll() already counted as a miss
+    public Board generate(Difficulty band) {
+        long start = System.nanoTime();
+        Board puzzle = Board.fromGrid(PuzzleGenerator.generate(spec, band));
+        long elapsed = System.nanoTime() - start;
+        generated.increment();
+        generateNanos.add(elapsed);
+        maxGenerateNanos.accumulateAndGet(elapsed, Math::max);
+        return puzzle;
+    }
+
+    public int size(Difficulty band) {
+        return pools.get(band).size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long total = getHits() + getMisses();
+        return total == 0 ? 1.0 : (double) getHits() / total;
+    }
+
+    public double getAverageGenerateMillis() {
+        long count = generated.sum();
+        return count == 0 ? 0 : generateNanos.sum() / 1e6 / count;
+    }
+
+    public double getMaxGenerateMillis() {
+        return maxGenerateNanos.get() / 1e6;
+    }
+
+    // Time from a band hitting its low-water mark to being back at its high-water mark
+    public double getAverageRefillMillis() {
+        long count = refills.sum();
+        return count == 0 ? 0 : refillNanos.sum() / 1e6 / count;
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private void scheduleRefill(Difficulty band) {
+        if (!refilling.get(band).compareAndSet(false, true)) return;
+        try {
+            workers.execute(() -> refill(band));
+        } catch (RejectedExecutionException e) {
+            refilling.get(band).set(false);
+        }
+    }
+
+    private void refill(Difficulty band) {
+        BlockingQueue<Board> pool = pools.get(band);
+        long start = System.nanoTime();
+        try {
+            while (pool.size() < highWater && !Thread.currentThread().isInterrupted()) {
+                if (!pool.offer(generate(band))) break;
+            }
+            refills.increment();
+            refillNanos.add(System.nanoTime() - start);
+        } finally {
+            refilling.get(band).set(false);
+        }
+    }
+
+    private Board next(Difficulty band) {
+        Board puzzle = pools.get(band).poll();
+        if (pools.get(band).size() <= lowWater) {
+            scheduleRefill(band);
+        }
+        return puzzle;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("PuzzlePool[");
+        for (Difficulty band : Difficulty.values()) {
+            text.append(band).append('=').append(size(band)).append(' ');
+        }
+        return text.append(String.format("hitRate=%.3f avgGenerate=%.2fms maxGenerate=%.2fms avgRefill=%.2fms]",
+                getHitRate(), getAverageGenerateMillis(), getMaxGenerateMillis(), getAverageRefillMillis())).toString();
+    }
+}
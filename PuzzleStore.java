@@ -0,0 +1,656 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.*;
+import java.util.zip.CRC32C;
+
+// Persistent Puzzle Store
+// Append-only on-disk store of 9x9 puzzles with their solution and difficulty,
+// keyed by canonical form (see CanonicalForm), so symmetric copies of a puzzle
+// are one entry: put() dedupes, lookup() answers any copy from the stored
+// solution, and sample() picks a stored puzzle of a band. A store is a
+// directory of:
+// - records.dat: a 16-byte header, then fixed 88-byte records of packed
+//   canonical puzzle and solution (41 bytes each, see Board.pack), band, clue
+//   count and a CRC32C of the rest. Record i is at 16 + 88 * i.
+// - index.<bits>: memory-mapped hash table of 2^bits longs, each the top 32
+//   bits of a key's hash and its record number + 1, probed linearly from the
+//   slot named by the hash's top bits. Those bits are all doubling needs, so
+//   the index grows into a new file without reading a single record.
+// - easy.lst, medium.lst, ...: record numbers of each band as ints, so a
+//   sample is one random read of the list and one of records.dat.
+//
+// Only records.dat is primary. sync() forces it, then the lists and index,
+// and only then stamps the index with the record and list lengths it covers.
+// On open, records past the stamp are checked against their CRC, a torn or
+// corrupt tail is cut off and the rest is indexed again, so a crash can lose
+// appends made since the last sync() but never corrupt the store.
+//
+// Thread-safe: lookups share a read lock, appends take the write lock. Read
+// methods throw UncheckedIOException, so they can sit in a solve path. Only
+// one store may have a directory open at a time: the constructor takes an
+// exclusive lock on records.dat and fails if another process or another
+// store in this one has the directory open.
+//
+// Usage: java PuzzleStore <directory> stats
+//        java PuzzleStore <directory> add <puzzle-file>
+//        java PuzzleStore <directory> generate <count>
+//        java PuzzleStore <directory> sample <band> [count]
+class PuzzleStore implements Closeable {
+    private static final int DATA_MAGIC = 0x534B5244; // "SKRD"
+    private static final int INDEX_MAGIC = 0x534B4958; // "SKIX"
+    private static final int VERSION = 1;
+    private static final int DATA_HEADER = 16;
+    private static final int INDEX_HEADER = 64;
+
+    private static final int PACKED = 41;
+    private static final int BAND_OFFSET = 2 * PACKED;
+    private static final int CLUES_OFFSET = BAND_OFFSET + 1;
+    private static final int CRC_OFFSET = CLUES_OFFSET + 1;
+    static final int RECORD = CRC_OFFSET + 4;
+
+    private static final int MIN_BITS = 16;
+    // Slots per mapping: 2^27 longs make a 1 GB window
+    private static final int SEGMENT_BITS = 27;
+    private static final long TAG_MASK = 0xFFFFFFFF00000000L;
+    // Record numbers go in the low 32 bits of a slot and in int band lists
+    private static final long MAX_RECORDS = Integer.MAX_VALUE;
+
+    private static final Difficulty[] BANDS = Difficulty.values();
+    // Directories open in this process. File locks belong to the process, and
+    // closing any channel on records.dat drops them, so a second store here has
+    // to be turned away before it opens one
+    private static final Set<Path> OPEN = ConcurrentHashMap.newKeySet();
+
+    private final Path directory;
+    private final Path openKey;
+    private final FileChannel data;
+    private final FileChannel[] bands = new FileChannel[BANDS.length];
+    private final long[] bandSizes = new long[BANDS.length];
+    private Index index;
+    private long records;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Append scratch, only touched under the write lock
+    private final ByteBuffer appendRecord = ByteBuffer.allocate(RECORD);
+    private final ByteBuffer appendEntry = ByteBuffer.allocate(4);
+    private final ThreadLocal<CanonicalForm> forms = ThreadLocal.withInitial(CanonicalForm::new);
+    private final ThreadLocal<GridValidator> validators = ThreadLocal.withInitial(GridValidator::new);
+    private final ThreadLocal<ByteBuffer> readRecords = ThreadLocal.withInitial(() -> ByteBuffer.allocate(RECORD));
+    private final ThreadLocal<ByteBuffer> readEntries = ThreadLocal.withInitial(() -> ByteBuffer.allocate(4));
+
+    // Opens the store in the directory, creating it if needed, and recovers
+    // anything appended after the last sync()
+    public PuzzleStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        openKey = directory.toRealPath();
+        if (!OPEN.add(openKey)) throw new IOException(directory + " is already open in this process");
+        try {
+            data = FileChannel.open(directory.resolve("records.dat"), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException | RuntimeException e) {
+            OPEN.remove(openKey);
+            throw e;
+        }
+        try {
+            // Two writers would interleave appends and each stamp its own index;
+            // the lock goes when the channel is closed
+            if (data.tryLock() == null) throw new IOException(directory + " is in use by another process");
+            records = checkData();
+            for (Difficulty band : BANDS) {
+                bands[band.ordinal()] = FileChannel.open(directory.resolve(band.name().toLowerCase(Locale.ROOT) + ".lst"),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+
+            index = Index.open(directory);
+            if (index != null && !stampHolds(index)) {
+                // Synced data is gone, so nothing derived from it can be trusted
+                index.delete();
+                index = null;
+            }
+            if (index == null) index = Index.create(directory, bitsFor(records));
+            recover(index.coveredRecords());
+            sync();
+        } catch (IOException | RuntimeException e) {
+            closeQuietly();
+            throw e;
+        }
+    }
+
+    // False if records or band list entries the index was stamped with are missing
+    private boolean stampHolds(Index index) throws IOException {
+        if (index.coveredRecords() > records) return false;
+        for (int band = 0; band < BANDS.length; band++) {
+            if (index.bandSize(band) * 4 > bands[band].size()) return false;
+        }
+        return true;
+    }
+
+    // Whole records in records.dat, after writing the header of a new file and
+    // cutting off a partly written last record
+    private long checkData() throws IOException {
+        long size = data.size();
+        ByteBuffer header = ByteBuffer.allocate(DATA_HEADER);
+        if (size < DATA_HEADER) {
+            // New, or the crash came before the header was complete
+            data.truncate(0);
+            header.putInt(DATA_MAGIC).putInt(VERSION).putInt(RECORD).putInt(0).flip();
+            writeFully(data, header, 0);
+            data.force(true);
+            return 0;
+        }
+        readFully(data, header, 0);
+        if (header.getInt(0) != DATA_MAGIC || header.getInt(4) != VERSION || header.getInt(8) != RECORD) {
+            throw new IOException(directory + " is not a version " + VERSION + " puzzle store");
+        }
+        long count = (size - DATA_HEADER) / RECORD;
+        if (size != DATA_HEADER + count * RECORD) data.truncate(DATA_HEADER + count * RECORD);
+        return count;
+    }
+
+    // Brings the index and band lists, which cover the first `from` records,
+    // up to date with records.dat; stops at the first record failing its CRC
+    private void recover(long from) throws IOException {
+        for (int b = 0; b < BANDS.length; b++) {
+            bandSizes[b] = from == 0 ? 0 : index.bandSize(b);
+            bands[b].truncate(bandSizes[b] * 4);
+        }
+        long total = records;
+        records = from;
+        ByteBuffer record = readRecords.get();
+        byte[] key = new byte[PACKED];
+        while (records < total) {
+            record.clear();
+            readFully(data, record, DATA_HEADER + records * RECORD);
+            int band = record.get(BAND_OFFSET);
+            if (crc(record) != record.getInt(CRC_OFFSET) || band < 0 || band >= BANDS.length) break;
+
+            record.get(0, key);
+            long hash = hash(key);
+            if (find(key, hash) < 0) {
+                // Else its slot was written before the crash and find() hit it
+                if (records + 1 > loadLimit(index.capacity)) grow();
+                insert(index, hash, records);
+            }
+            appendBand(band, records);
+            records++;
+        }
+        if (records < total) data.truncate(DATA_HEADER + records * RECORD);
+    }
+
+    // Adds a puzzle with its solution and band unless an equivalent puzzle is
+    // already stored; true if it was new. Durable once sync() returns.
+    public boolean put(int[][] puzzle, int[][] solution, Difficulty band) throws IOException {
+        checkClassic(puzzle);
+        checkClassic(solution);
+        int clues = 0;
+        for (int row = 0; row < puzzle.length; row++) {
+            for (int col = 0; col < puzzle.length; col++) {
+                int digit = puzzle[row][col];
+                if (digit == 0) continue;
+                if (digit != solution[row][col]) {
+                    throw new IllegalArgumentException("Solution does not match the givens at " + row + "," + col);
+                }
+                clues++;
+            }
+        }
+        if (!validators.get().isValidSolution(solution)) {
+            throw new IllegalArgumentException("Not a valid solution");
+        }
+
+        CanonicalForm form = forms.get();
+        form.canonicalize(puzzle);
+        byte[] key = form.board().pack();
+        byte[] packedSolution = form.toCanonical(solution).pack();
+        long hash = hash(key);
+
+        lock.writeLock().lock();
+        try {
+            if (find(key, hash) >= 0) return false;
+            if (records == MAX_RECORDS) throw new IOException("Puzzle store is full");
+            if (records + 1 > loadLimit(index.capacity)) grow();
+
+            ByteBuffer record = appendRecord;
+            record.clear();
+            record.put(key).put(packedSolution).put((byte) band.ordinal()).put((byte) clues);
+            record.putInt(crc(record)).flip();
+            writeFully(data, record, DATA_HEADER + records * RECORD);
+            appendBand(band.ordinal(), records);
+            insert(index, hash, records);
+            records++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Solves the grid in place from the stored solution of an equivalent
+    // puzzle; false (grid untouched) if there is none or the grid is not 9x9
+    public boolean lookup(int[][] grid) {
+        if (GridSpec.forGrid(grid) != GridSpec.CLASSIC) return false;
+        CanonicalForm form = forms.get();
+        form.canonicalize(grid);
+        byte[] key = form.board().pack();
+        long hash = hash(key);
+
+        ByteBuffer record = readRecords.get();
+        lock.readLock().lock();
+        try {
+            if (find(key, hash) < 0) return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+        // find() left the matching record in this thread's buffer
+        byte[] solution = new byte[PACKED];
+        record.get(PACKED, solution);
+        form.fromCanonical(Board.unpack(GridSpec.CLASSIC, solution), grid);
+        return true;
+    }
+
+    // True if the puzzle or an equivalent one is stored
+    public boolean contains(int[][] puzzle) {
+        if (GridSpec.forGrid(puzzle) != GridSpec.CLASSIC) return false;
+        CanonicalForm form = forms.get();
+        form.canonicalize(puzzle);
+        byte[] key = form.board().pack();
+        lock.readLock().lock();
+        try {
+            return find(key, hash(key)) >= 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // A uniformly chosen stored puzzle of the band (in its canonical form),
+    // or null if the band is empty
+    public Board sample(Difficulty band, SplittableRandom random) {
+        ByteBuffer record = readRecords.get();
+        lock.readLock().lock();
+        try {
+            long size = bandSizes[band.ordinal()];
+            if (size == 0) return null;
+            ByteBuffer entry = readEntries.get();
+            entry.clear();
+            readFully(bands[band.ordinal()], entry, random.nextLong(size) * 4);
+            readRecord(entry.getInt(0), record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+        byte[] puzzle = new byte[PACKED];
+        record.get(0, puzzle);
+        return Board.unpack(GridSpec.CLASSIC, puzzle);
+    }
+
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return records;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long size(Difficulty band) {
+        lock.readLock().lock();
+        try {
+            return bandSizes[band.ordinal()];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Makes every put() so far durable
+    public void sync() throws IOException {
+        lock.writeLock().lock();
+        try {
+            forceRecords();
+            index.force();
+            index.stamp(records, bandSizes);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void forceRecords() throws IOException {
+        data.force(false);
+        for (FileChannel band : bands) band.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            sync();
+        } finally {
+            closeQuietly();
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void closeQuietly() {
+        for (Closeable channel : bands) {
+            try {
+                if (channel != null) channel.close();
+            } catch (IOException ignored) {
+                // Nothing left to lose: the data was forced or will be recovered
+            }
+        }
+        try {
+            if (index != null) index.close();
+            data.close();
+        } catch (IOException ignored) {
+        } finally {
+            OPEN.remove(openKey);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("PuzzleStore[").append(directory).append(" records=").append(size());
+        for (Difficulty band : BANDS) {
+            text.append(' ').append(band.name().toLowerCase(Locale.ROOT)).append('=').append(size(band));
+        }
+        return text.append(']').toString();
+    }
+
+    // Record number holding the key, or -1. On a hit the record is left in
+    // this thread's read buffer.
+    private long find(byte[] key, long hash) throws IOException {
+        Index table = index;
+        long mask = table.capacity - 1;
+        long tag = hash & TAG_MASK;
+        ByteBuffer record = readRecords.get();
+        for (long slot = hash >>> (64 - table.bits); ; slot = (slot + 1) & mask) {
+            long entry = table.get(slot);
+            if (entry == 0) return -1;
+            // Slots left by appends lost in a crash point past the end, or at a
+            // record that since got different contents; both just miss
+            long number = (entry & ~TAG_MASK) - 1;
+            if ((entry & TAG_MASK) != tag || number >= records) continue;
+            readRecord(number, record);
+            if (Arrays.equals(record.array(), 0, PACKED, key, 0, PACKED)) return number;
+        }
+    }
+
+    private static void insert(Index table, long hash, long number) {
+        insertEntry(table, (hash & TAG_MASK) | (number + 1));
+    }
+
+    private static void insertEntry(Index table, long entry) {
+        long mask = table.capacity - 1;
+        long slot = entry >>> (64 - table.bits);
+        while (table.get(slot) != 0) slot = (slot + 1) & mask;
+        table.set(slot, entry);
+    }
+
+    // Rehashes into an index of twice the slots, placing each entry by one
+    // more of the hash bits it carries; records.dat is not read
+    private void grow() throws IOException {
+        forceRecords();
+        Index bigger = Index.create(directory, index.bits + 1);
+        for (long slot = 0; slot < index.capacity; slot++) {
+            long entry = index.get(slot);
+            if (entry != 0 && (entry & ~TAG_MASK) <= records) insertEntry(bigger, entry);
+        }
+        bigger.force();
+        bigger.stamp(records, bandSizes);
+        Index old = index;
+        index = bigger;
+        old.delete();
+    }
+
+    private void appendBand(int band, long number) throws IOException {
+        appendEntry.clear();
+        appendEntry.putInt((int) number).flip();
+        writeFully(bands[band], appendEntry, bandSizes[band] * 4);
+        bandSizes[band]++;
+    }
+
+    private void readRecord(long number, ByteBuffer record) throws IOException {
+        record.clear();
+        readFully(data, record, DATA_HEADER + number * RECORD);
+        if (crc(record) != record.getInt(CRC_OFFSET)) {
+            throw new IOException("Record " + number + " of " + directory + " is corrupt");
+        }
+    }
+
+    private static int crc(ByteBuffer record) {
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), 0, CRC_OFFSET);
+        return (int) crc.getValue();
+    }
+
+    // FNV-1a over the packed key, then the murmur3 finalizer, since slots are
+    // picked by the top bits
+    static long hash(byte[] key) {
+        long h = 0xCBF29CE484222325L;
+        for (byte b : key) {
+            h = (h ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    // Records an index of 2^bits slots takes before it grows
+    private static long loadLimit(long capacity) {
+        return capacity / 10 * 7;
+    }
+
+    private static int bitsFor(long count) {
+        int bits = MIN_BITS;
+        while (count + 1 > loadLimit(1L << bits)) bits++;
+        return bits;
+    }
+
+    private static void checkClassic(int[][] grid) {
+        if (GridSpec.forGrid(grid) != GridSpec.CLASSIC) {
+            throw new IllegalArgumentException("The puzzle store holds 9x9 puzzles only");
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) throw new EOFException("Unexpected end of file at " + (position + buffer.position()));
+        }
+        buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    // One index file: a header stamped by sync(), then the slots, mapped in
+    // windows of at most 2^SEGMENT_BITS slots
+    private static final class Index {
+        final Path path;
+        final int bits;
+        final long capacity;
+        private final FileChannel channel;
+        private final MappedByteBuffer header;
+        private final MappedByteBuffer[] segments;
+
+        private Index(Path path, int bits, FileChannel channel) throws IOException {
+            this.path = path;
+            this.bits = bits;
+            this.capacity = 1L << bits;
+            this.channel = channel;
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER);
+            long segmentSlots = 1L << SEGMENT_BITS;
+            segments = new MappedByteBuffer[(int) ((capacity + segmentSlots - 1) / segmentSlots)];
+            for (int i = 0; i < segments.length; i++) {
+                long slots = Math.min(segmentSlots, capacity - i * segmentSlots);
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, INDEX_HEADER + i * segmentSlots * 8, slots * 8);
+            }
+        }
+
+        // Empty index; it only counts as valid once stamped
+        static Index create(Path directory, int bits) throws IOException {
+            if (bits > 32) throw new IOException("Puzzle store index cannot grow past 2^32 slots");
+            Path path = directory.resolve("index." + bits);
+            return new Index(path, bits, FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+        }
+
+        // The largest completely stamped index file, or null. The others are
+        // left over from a grow() that finished or crashed, and are deleted.
+        static Index open(Path directory) throws IOException {
+            List<Integer> sizes = new ArrayList<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "index.*")) {
+                for (Path file : files) {
+                    String suffix = file.getFileName().toString().substring("index.".length());
+                    if (suffix.matches("[0-9]{1,2}")) sizes.add(Integer.parseInt(suffix));
+                }
+            }
+            sizes.sort(Collections.reverseOrder());
+
+            Index chosen = null;
+            for (int bits : sizes) {
+                Path path = directory.resolve("index." + bits);
+                if (chosen == null && bits >= MIN_BITS && bits <= 32 && isStamped(path, bits)) {
+                    chosen = new Index(path, bits, FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE));
+                } else {
+                    Files.deleteIfExists(path);
+                }
+            }
+            return chosen;
+        }
+
+        private static boolean isStamped(Path path, int bits) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                if (channel.size() != INDEX_HEADER + (8L << bits)) return false;
+                ByteBuffer header = ByteBuffer.allocate(12);
+                readFully(channel, header, 0);
+                return header.getInt(0) == INDEX_MAGIC && header.getInt(4) == VERSION && header.getInt(8) == bits;
+            }
+        }
+
+        long get(long slot) {
+            return segments[(int) (slot >>> SEGMENT_BITS)].getLong((int) (slot & ((1L << SEGMENT_BITS) - 1)) << 3);
+        }
+
+        void set(long slot, long entry) {
+            segments[(int) (slot >>> SEGMENT_BITS)].putLong((int) (slot & ((1L << SEGMENT_BITS) - 1)) << 3, entry);
+        }
+
+        // Records and band list entries whose slots the last stamp covered
+        long coveredRecords() {
+            return header.getLong(16);
+        }
+
+        long bandSize(int band) {
+            return header.getLong(24 + 8 * band);
+        }
+
+        void force() {
+            for (MappedByteBuffer segment : segments) segment.force();
+        }
+
+        // Written after the slots are forced, and the magic last, so a torn
+        // stamp leaves either the previous one or an invalid file
+        void stamp(long records, long[] bandSizes) {
+            header.putLong(16, records);
+            for (int band = 0; band < bandSizes.length; band++) header.putLong(24 + 8 * band, bandSizes[band]);
+            header.putInt(4, VERSION).putInt(8, bits).putInt(0, INDEX_MAGIC);
+            header.force();
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+
+        // Best effort: some platforms refuse to delete a file that is still
+        // mapped, in which case the next open() cleans it up
+        void delete() {
+            try {
+                channel.close();
+                Files.deleteIfExists(path);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java PuzzleStore <directory> stats | add <puzzle-file> | generate <count> | sample <band> [count]");
+            System.exit(2);
+        }
+        BitmaskSolver solver = new BitmaskSolver();
+        DifficultyRater rater = new DifficultyRater();
+        try (PuzzleStore store = new PuzzleStore(Paths.get(args[0]))) {
+            switch (args[1]) {
+                case "stats":
+                    break;
+                case "add": {
+                    long added = 0, known = 0, unsolvable = 0;
+                    try (BufferedReader reader = Files.newBufferedReader(Paths.get(args[2]), StandardCharsets.US_ASCII)) {
+                        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                            line = line.trim();
+                            if (line.isEmpty()) continue;
+                            int[][] puzzle = Board.parse(line).toGrid();
+                            int[][] solution = solved(puzzle, solver);
+                            if (solution == null) {
+                                unsolvable++;
+                            } else if (store.put(puzzle, solution, rater.rate(puzzle).difficulty())) {
+                                added++;
+                            } else {
+                                known++;
+                            }
+                        }
+                    }
+                    System.out.println("added " + added + ", already stored " + known + ", unsolvable " + unsolvable);
+                    break;
+                }
+                case "generate": {
+                    long count = Long.parseLong(args[2]);
+                    PuzzleGenerator generator = new PuzzleGenerator(GridSpec.CLASSIC);
+                    long added = 0;
+                    for (long i = 0; i < count; i++) {
+                        int[][] puzzle = generator.nextUnique();
+                        if (store.put(puzzle, solved(puzzle, solver), rater.rate(puzzle).difficulty())) added++;
+                    }
+                    System.out.println("added " + added + " of " + count + " generated puzzles");
+                    break;
+                }
+                case "sample": {
+                    Difficulty band = Difficulty.valueOf(args[2].toUpperCase(Locale.ROOT));
+                    int count = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+                    SplittableRandom random = new SplittableRandom();
+                    for (int i = 0; i < count; i++) {
+                        Board puzzle = store.sample(band, random);
+                        if (puzzle == null) break;
+                        System.out.println(puzzle);
+                    }
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown command: " + args[1]);
+            }
+            System.out.println(store);
+        }
+    }
+
+    // Solved copy of the puzzle, or null if it has none
+    private static int[][] solved(int[][] puzzle, BitmaskSolver solver) {
+        int[][] solution = new int[puzzle.length][];
+        for (int i = 0; i < puzzle.length; i++) solution[i] = puzzle[i].clone();
+        return solver.solve(solution) ? solution : null;
+    }
+}
@@ -0,0 +1,189 @@
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+// Solution Cache
+// Remembers solved 9x9 puzzles under their canonical form (see CanonicalForm),
+// so a puzzle that is a relabeled, transposed or shuffled copy of one already
+// solved is answered by mapping the stored solution back instead of searching.
+// Keys and solutions are kept packed (41 bytes each). Entries are spread by
+// hash over up to STRIPES independently locked LRU maps, each evicting its
+// least recently used entry once it holds its share of the capacity, so
+// threads rarely wait on each other.
+//
+// Canonicalizing costs close to half of an average solve, which the cache
+// only earns back on hits. So a puzzle is first checked against a doorkeeper,
+// a bitmap of CanonicalForm.invariant() hashes seen recently: one never seen
+// is solved directly and only marked, and the full canonical lookup and store
+// wait for a second sighting. One-off puzzles then cost a line-signature hash
+// rather than a canonical search, at the price of one extra miss per repeat.
+// The bitmap is cleared once as many puzzles have been marked as the cache
+// holds twice over, so it forgets classes that stopped coming. Thread-safe.
+class SolutionCache {
+    private static final int STRIPES = 16;
+    private static final int PACKED = (GridSpec.CLASSIC.cells + 1) / 2;
+    // Doorkeeper bits per entry of capacity; keeps false "seen before" answers rare
+    private static final int BITS_PER_ENTRY = 16;
+
+    private final int capacity;
+    private final Map<Key, byte[]>[] stripes;
+    private final ThreadLocal<CanonicalForm> forms = ThreadLocal.withInitial(CanonicalForm::new);
+    // Lookup key over a reused buffer; only copies of it go into the maps
+    private final ThreadLocal<Key> probes = ThreadLocal.withInitial(() -> new Key(new byte[PACKED]));
+
+    private final AtomicLongArray seen;
+    private final AtomicInteger marked = new AtomicInteger();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SolutionCache() {
+        this(10_000);
+    }
+
+    @SuppressWarnings("unchecked")
+    public SolutionCache(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive");
+        this.capacity = capacity;
+        int bits = Integer.highestOneBit((int) Math.min(1 << 30, (long) capacity * BITS_PER_ENTRY - 1)) << 1;
+        this.seen = new AtomicLongArray(Math.max(1, bits >>> 6));
+        // A power of two, and no more stripes than entries
+        int count = Integer.highestOneBit(Math.min(STRIPES, capacity));
+        this.stripes = new Map[count];
+        for (int i = 0; i < count; i++) {
+            int share = capacity / count + (i < capacity % count ? 1 : 0);
+            stripes[i] = new LinkedHashMap<Key, byte[]>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, byte[]> eldest) {
+                    return size() > share;
+                }
+            };
+        }
+    }
+
+    // Solves the grid in place from the cache, falling back to the solver (which
+    // must also solve in place) on a miss. Only solved puzzles are stored.
+    public boolean solve(int[][] grid, Predicate<int[][]> solver) {
+        if (GridSpec.forGrid(grid) != GridSpec.CLASSIC) return solver.test(grid);
+
+        CanonicalForm form = forms.get();
+        if (!seenBefore(form.invariant(grid))) {
+            misses.increment();
+            return solver.test(grid);
+        }
+        form.canonicalize(grid);
+        Key probe = probes.get();
+        form.pack(probe.packed);
+        probe.rehash();
+        Map<Key, byte[]> entries = stripeFor(probe);
+
+        byte[] solution;
+        synchronized (entries) {
+            solution = entries.get(probe);
+        }
+        if (solution != null) {
+            hits.increment();
+            form.fromCanonical(solution, grid);
+            return true;
+        }
+
+        misses.increment();
+        // Copied before the solver runs, in case it comes back into this cache
+        Key key = new Key(probe.packed.clone());
+        if (!solver.test(grid)) return false;
+        solution = form.toCanonical(grid).pack();
+        synchronized (entries) {
+            entries.put(key, solution);
+        }
+        return true;
+    }
+
+    // Marks the invariant as seen; true if it already was
+    private boolean seenBefore(long invariant) {
+        int bit = (int) (invariant & ((long) seen.length() * 64 - 1));
+        long mask = 1L << bit;
+        if ((seen.get(bit >>> 6) & mask) != 0) return true;
+        if ((seen.getAndAccumulate(bit >>> 6, mask, (word, m) -> word | m) & mask) != 0) return true;
+        if (marked.incrementAndGet() > 2L * capacity) {
+            // Racing markers may lose a bit or two here, which costs one more miss each
+            marked.set(0);
+            for (int i = 0; i < seen.length(); i++) seen.set(i, 0);
+        }
+        return false;
+    }
+
+    private Map<Key, byte[]> stripeFor(Key key) {
+        // The low bits of Arrays.hashCode vary with the last cells; spread the high ones in
+        int hash = key.hash ^ (key.hash >>> 16);
+        return stripes[hash & (stripes.length - 1)];
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<Key, byte[]> entries : stripes) {
+            synchronized (entries) {
+                size += entries.size();
+            }
+        }
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void clear() {
+        marked.set(0);
+        for (int i = 0; i < seen.length(); i++) seen.set(i, 0);
+        for (Map<Key, byte[]> entries : stripes) {
+            synchronized (entries) {
+                entries.clear();
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long total = getHits() + getMisses();
+        return total == 0 ? 0 : (double) getHits() / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SolutionCache[size=%d/%d hits=%d misses=%d hitRate=%.3f]",
+                size(), capacity, getHits(), getMisses(), getHitRate());
+    }
+
+    // Packed canonical puzzle; the hash is computed once, or again by a probe
+    // after its buffer is refilled
+    private static final class Key {
+        private final byte[] packed;
+        private int hash;
+
+        Key(byte[] packed) {
+            this.packed = packed;
+            rehash();
+        }
+
+        void rehash() {
+            hash = Arrays.hashCode(packed);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(packed, ((Key) o).packed);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
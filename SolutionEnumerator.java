@@ -0,0 +1,110 @@
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.*;
+
+// Solution Enumerator
+// Lazily yields every solution of a grid, each as a fresh int[][], without
+// touching the caller's grid. It drives a stepwise BitmaskSolver search
+// (begin/resume), which stops at each solution and carries on from the same
+// frame on the next request; memory stays at one frame per branching level
+// however many solutions there are.
+//
+// As a Spliterator it splits by handing half of the untried branches of its
+// shallowest frame with two or more to a new enumerator on a copy of the
+// search (see BitmaskSolver.splitSearch), searching a little deeper first if
+// no frame has two. That lets a parallel Stream spread the tree over the
+// common pool. Solutions come out in search order sequentially, in no
+// particular order in parallel.
+class SolutionEnumerator implements Spliterator<int[][]> {
+    // Search nodes trySplit may visit looking for a frame worth splitting
+    private static final int SPLIT_STEPS = 64;
+
+    private final BitmaskSolver engine;
+    private final int size;
+    private boolean exhausted;
+    // Solution met while trySplit was searching for a split point
+    private int[][] pending;
+    // The number of solutions is unknown, so this only halves per split, which
+    // stops a parallel stream splitting a few levels past one task per worker
+    private long estimate = Long.MAX_VALUE;
+
+    public SolutionEnumerator(int[][] grid) {
+        this(GridSpec.forGrid(grid), grid);
+    }
+
+    public SolutionEnumerator(GridSpec spec, int[][] grid) {
+        this(new BitmaskSolver(spec));
+        // Conflicting givens simply enumerate nothing
+        exhausted = !engine.load(grid);
+        if (!exhausted) engine.begin();
+    }
+
+    private SolutionEnumerator(BitmaskSolver engine) {
+        this.engine = engine;
+        this.size = engine.getSpec().size;
+    }
+
+    // Every solution of the grid, computed as the iterator is advanced
+    public static Iterator<int[][]> iterator(int[][] grid) {
+        return Spliterators.iterator(new SolutionEnumerator(grid));
+    }
+
+    public static Stream<int[][]> stream(int[][] grid, boolean parallel) {
+        return StreamSupport.stream(new SolutionEnumerator(grid), parallel);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super int[][]> action) {
+        int[][] solution = next();
+        if (solution == null) return false;
+        action.accept(solution);
+        return true;
+    }
+
+    // Runs the search up to the next solution; null once the tree is exhausted
+    private int[][] next() {
+        int[][] solution = pending;
+        pending = null;
+        if (solution == null && !exhausted) solution = step(Long.MAX_VALUE);
+        return solution;
+    }
+
+    // Resumes the search for at most the given number of nodes; returns the
+    // solution it stopped at, or null if it paused or ran out
+    private int[][] step(long nodes) {
+        BitmaskSolver.Progress progress = engine.resume(nodes);
+        if (progress != BitmaskSolver.Progress.SOLVED) {
+            exhausted = progress != BitmaskSolver.Progress.PAUSED;
+            return null;
+        }
+        int[][] solution = new int[size][size];
+        engine.store(solution);
+        return solution;
+    }
+
+    @Override
+    public Spliterator<int[][]> trySplit() {
+        for (int steps = 0; ; steps++) {
+            if (exhausted) return null;
+            BitmaskSolver split = engine.splitSearch();
+            if (split != null) {
+                estimate >>>= 1;
+                SolutionEnumerator other = new SolutionEnumerator(split);
+                other.estimate = estimate;
+                return other;
+            }
+            if (steps == SPLIT_STEPS || pending != null) return null;
+            pending = step(1);
+        }
+    }
+
+    @Override
+    public long estimateSize() {
+        return exhausted && pending == null ? 0 : estimate;
+    }
+
+    @Override
+    public int characteristics() {
+        return NONNULL | IMMUTABLE;
+    }
+}
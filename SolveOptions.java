@@ -0,0 +1,73 @@
+// Solve Options
+// Bounds for a single solve: a wall-clock timeout, an absolute deadline (e.g.
+// the deadline of the request being served) and a maximum number of search
+// nodes. Whichever is hit first stops the search with BUDGET_EXCEEDED. The
+// node budget makes the bound independent of machine speed and load, so a
+// puzzle quarantined on one box is quarantined on every box. Immutable.
+final class SolveOptions {
+    static final SolveOptions UNBOUNDED = new SolveOptions(0, false, 0, 0);
+
+    private final long timeoutMillis;
+    private final boolean hasDeadline;
+    private final long deadlineNanos;
+    private final long nodeBudget;
+
+    private SolveOptions(long timeoutMillis, boolean hasDeadline, long deadlineNanos, long nodeBudget) {
+        this.timeoutMillis = timeoutMillis;
+        this.hasDeadline = hasDeadline;
+        this.deadlineNanos = deadlineNanos;
+        this.nodeBudget = nodeBudget;
+    }
+
+    // Time limit counted from the start of each solve; 0 means none
+    public SolveOptions withTimeout(long millis) {
+        if (millis < 0) throw new IllegalArgumentException("Timeout must not be negative");
+        return new SolveOptions(millis, hasDeadline, deadlineNanos, nodeBudget);
+    }
+
+    // Absolute limit as a System.nanoTime() value
+    public SolveOptions withDeadline(long nanoTime) {
+        return new SolveOptions(timeoutMillis, true, nanoTime, nodeBudget);
+    }
+
+    // Maximum search nodes per solve; 0 means none
+    public SolveOptions withNodeBudget(long nodes) {
+        if (nodes < 0) throw new IllegalArgumentException("Node budget must not be negative");
+        return new SolveOptions(timeoutMillis, hasDeadline, deadlineNanos, nodes);
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public long getNodeBudget() {
+        return nodeBudget;
+    }
+
+    // Applies these bounds to an engine about to start a solve at startNanos
+    void applyTo(BitmaskSolver engine, long startNanos) {
+        boolean limited = hasDeadline;
+        long deadline = deadlineNanos;
+        if (timeoutMillis > 0) {
+            long timeoutDeadline = startNanos + timeoutMillis * 1_000_000;
+            deadline = limited && deadline - timeoutDeadline < 0 ? deadline : timeoutDeadline;
+            limited = true;
+        }
+        if (limited) {
+            engine.setDeadline(deadline);
+        } else {
+            engine.clearDeadline();
+        }
+        if (nodeBudget > 0) {
+            engine.setNodeBudget(nodeBudget);
+        } else {
+            engine.clearNodeBudget();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SolveOptions[timeout=" + timeoutMillis + "ms nodeBudget=" + nodeBudget
+                + (hasDeadline ? " deadline set" : "") + "]";
+    }
+}
@@ -0,0 +1,79 @@
+// Solve Result
+// Outcome of a bounded solve plus the search statistics gathered up to the
+// point it finished or gave up, so a caller can tell "no solution" from "ran
+// out of budget" and see how far a search got before being stopped.
+final class SolveResult {
+    enum Status {
+        SOLVED,
+        // Conflicting givens, or the search space was exhausted
+        UNSOLVABLE,
+        // Stopped by the timeout, deadline or node budget
+        BUDGET_EXCEEDED,
+        // Stopped by SudokuSolver.cancel()
+        CANCELLED
+    }
+
+    private final Status status;
+    private final int[][] solution;
+    private final long nodes;
+    private final long backtracks;
+    private final int maxDepth;
+    private final long propagations;
+    private final long wallNanos;
+
+    SolveResult(Status status, int[][] solution, long nodes, long backtracks, int maxDepth,
+                long propagations, long wallNanos) {
+        this.status = status;
+        this.solution = solution;
+        this.nodes = nodes;
+        this.backtracks = backtracks;
+        this.maxDepth = maxDepth;
+        this.propagations = propagations;
+        this.wallNanos = wallNanos;
+    }
+
+    // Snapshot of the engine's statistics after a solve that ended with the given status
+    static SolveResult of(Status status, int[][] solution, BitmaskSolver engine, long wallNanos) {
+        return new SolveResult(status, solution, engine.getNodes(), engine.getBacktracks(),
+                engine.getMaxDepth(), engine.getPropagations(), wallNanos);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isSolved() {
+        return status == Status.SOLVED;
+    }
+
+    // The solved grid, or null unless the status is SOLVED
+    public int[][] getSolution() {
+        return solution;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getPropagations() {
+        return propagations;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%d nodes, %d backtracks, depth %d, %d propagations, %.3f ms)",
+                status, nodes, backtracks, maxDepth, propagations, wallNanos / 1e6);
+    }
+}
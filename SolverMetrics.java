@@ -0,0 +1,277 @@
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.*;
+import java.util.function.Supplier;
+import javax.management.*;
+
+// Solver Metrics
+// Aggregates the per-solve search statistics of BitmaskSolver (nodes,
+// backtracks, depth, propagations, candidate checks) plus wall time into
+// power-of-two histograms, across any number of solver threads. Nothing is
+// recorded unless a SudokuSolver or BatchSolver has metrics attached, so the
+// only cost when disabled is the engine's own counter increments.
+// Readable as JSON (toJson) or over JMX (registerMBean).
+class SolverMetrics implements SolverMetricsMXBean {
+    // Lock-free histogram; bucket b holds values in [2^(b-1), 2^b), bucket 0 holds zero
+    static final class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        void add(long value) {
+            buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+            count.increment();
+            sum.add(value);
+            max.accumulateAndGet(value, Math::max);
+        }
+
+        long count() {
+            return count.sum();
+        }
+
+        double mean() {
+            long n = count();
+            return n == 0 ? 0 : (double) sum.sum() / n;
+        }
+
+        long max() {
+            return max.get();
+        }
+
+        // Upper bound of the bucket holding the given quantile (0 < q <= 1)
+        long percentile(double q) {
+            long n = count();
+            if (n == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * n));
+            long seen = 0;
+            for (int b = 0; b < 64; b++) {
+                seen += buckets.get(b);
+                if (seen >= rank) return b == 0 ? 0 : Math.min(max(), (1L << b) - 1);
+            }
+            return max();
+        }
+
+        void reset() {
+            for (int b = 0; b < 64; b++) buckets.set(b, 0);
+            count.reset();
+            sum.reset();
+            max.set(0);
+        }
+
+        void appendJson(StringBuilder json) {
+            json.append(String.format(Locale.ROOT, "{\"count\":%d,\"mean\":%.2f,\"p50\":%d,\"p90\":%d,\"p99\":%d,\"max\":%d,\"buckets\":[",
+                    count(), mean(), percentile(0.5), percentile(0.9), percentile(0.99), max()));
+            int last = 63;
+            while (last > 0 && buckets.get(last) == 0) last--;
+            for (int b = 0; b <= last; b++) {
+                if (b > 0) json.append(',');
+                json.append(buckets.get(b));
+            }
+            json.append("]}");
+        }
+    }
+
+    private final Histogram nodes = new Histogram();
+    private final Histogram backtracks = new Histogram();
+    private final Histogram depth = new Histogram();
+    private final Histogram propagations = new Histogram();
+    private final Histogram candidateChecks = new Histogram();
+    private final Histogram wallMicros = new Histogram();
+
+    private final LongAdder solved = new LongAdder();
+    private final LongAdder unsolvable = new LongAdder();
+    private final LongAdder aborted = new LongAdder();
+
+    private volatile long slowestNanos = -1;
+    private String slowestPuzzle = "";
+
+    // Records the statistics of the engine's last solve. The puzzle text is only
+    // requested when this is the slowest solve so far.
+    public void record(BitmaskSolver engine, long wallNanos, boolean wasSolved, Supplier<String> puzzle) {
+        record(engine.getNodes(), engine.getBacktracks(), engine.getMaxDepth(), engine.getPropagations(),
+                engine.getCandidateChecks(), engine.isAborted(), wallNanos, wasSolved, puzzle);
+    }
+
+    // Same for the last parallel or raced solve, summed over all its tasks
+    public void record(ParallelSolver search, long wallNanos, boolean wasSolved, Supplier<String> puzzle) {
+        record(search.getNodes(), search.getBacktracks(), search.getMaxDepth(), search.getPropagations(),
+                search.getCandidateChecks(), search.isAborted(), wallNanos, wasSolved, puzzle);
+    }
+
+    private void record(long searchNodes, long searchBacktracks, int maxDepth, long searchPropagations,
+            long searchChecks, boolean wasAborted, long wallNanos, boolean wasSolved, Supplier<String> puzzle) {
+        nodes.add(searchNodes);
+        backtracks.add(searchBacktracks);
+        depth.add(maxDepth);
+        propagations.add(searchPropagations);
+        candidateChecks.add(searchChecks);
+        wallMicros.add(wallNanos / 1000);
+
+        if (wasSolved) {
+            solved.increment();
+        } else if (wasAborted) {
+            aborted.increment();
+        } else {
+            unsolvable.increment();
+        }
+
+        if (wallNanos > slowestNanos) {
+            synchronized (this) {
+                if (wallNanos > slowestNanos) {
+                    slowestNanos = wallNanos;
+                    slowestPuzzle = puzzle.get();
+                }
+            }
+        }
+    }
+
+    // One-line text of a grid as given, including out-of-range digits ('?')
+    static String describe(int[][] grid) {
+        StringBuilder text = new StringBuilder(grid.length * grid.length);
+        for (int[] row : grid) {
+            for (int digit : row) {
+                text.append(digit >= 0 && digit <= 35 ? (char) BitmaskSolver.encodeSymbol(digit) : '?');
+            }
+        }
+        return text.toString();
+    }
+
+    // Makes these metrics visible to JMX clients as sudoku:type=SolverMetrics,name=<name>
+    public ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName("sudoku:type=SolverMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer()
+                .registerMBean(new StandardMBean(this, SolverMetricsMXBean.class, true), objectName);
+        return objectName;
+    }
+
+    @Override
+    public long getSolves() {
+        return wallMicros.count();
+    }
+
+    @Override
+    public long getSolved() {
+        return solved.sum();
+    }
+
+    @Override
+    public long getUnsolvable() {
+        return unsolvable.sum();
+    }
+
+    @Override
+    public long getAborted() {
+        return aborted.sum();
+    }
+
+    @Override
+    public double getMeanNodes() {
+        return nodes.mean();
+    }
+
+    @Override
+    public long getP99Nodes() {
+        return nodes.percentile(0.99);
+    }
+
+    @Override
+    public long getMaxNodes() {
+        return nodes.max();
+    }
+
+    @Override
+    public double getMeanBacktracks() {
+        return backtracks.mean();
+    }
+
+    @Override
+    public long getMaxDepth() {
+        return depth.max();
+    }
+
+    @Override
+    public double getMeanPropagations() {
+        return propagations.mean();
+    }
+
+    @Override
+    public double getMeanCandidateChecks() {
+        return candidateChecks.mean();
+    }
+
+    @Override
+    public double getMeanWallMicros() {
+        return wallMicros.mean();
+    }
+
+    @Override
+    public long getP50WallMicros() {
+        return wallMicros.percentile(0.5);
+    }
+
+    @Override
+    public long getP99WallMicros() {
+        return wallMicros.percentile(0.99);
+    }
+
+    @Override
+    public long getMaxWallMicros() {
+        return wallMicros.max();
+    }
+
+    @Override
+    public synchronized String getSlowestPuzzle() {
+        return slowestPuzzle;
+    }
+
+    @Override
+    public String getJson() {
+        return toJson();
+    }
+
+    @Override
+    public void reset() {
+        for (Histogram histogram : new Histogram[] {nodes, backtracks, depth, propagations, candidateChecks, wallMicros}) {
+            histogram.reset();
+        }
+        solved.reset();
+        unsolvable.reset();
+        aborted.reset();
+        synchronized (this) {
+            slowestNanos = -1;
+            slowestPuzzle = "";
+        }
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder(1024);
+        json.append(String.format(Locale.ROOT, "{\"solves\":%d,\"solved\":%d,\"unsolvable\":%d,\"aborted\":%d",
+                getSolves(), getSolved(), getUnsolvable(), getAborted()));
+        appendHistogram(json, "nodes", nodes);
+        appendHistogram(json, "backtracks", backtracks);
+        appendHistogram(json, "maxDepth", depth);
+        appendHistogram(json, "propagations", propagations);
+        appendHistogram(json, "candidateChecks", candidateChecks);
+        appendHistogram(json, "wallMicros", wallMicros);
+        synchronized (this) {
+            // Puzzle text is digits, letters and dots only, so needs no escaping
+            json.append(",\"slowest\":{\"micros\":").append(Math.max(0, slowestNanos / 1000))
+                    .append(",\"puzzle\":\"").append(slowestPuzzle).append("\"}");
+        }
+        return json.append('}').toString();
+    }
+
+    private static void appendHistogram(StringBuilder json, String name, Histogram histogram) {
+        json.append(",\"").append(name).append("\":");
+        histogram.appendJson(json);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SolverMetrics[solves=%d solved=%d unsolvable=%d aborted=%d meanNodes=%.1f p99Nodes=%d "
+                        + "meanWall=%.1fus p99Wall=%dus maxWall=%dus]",
+                getSolves(), getSolved(), getUnsolvable(), getAborted(), getMeanNodes(), getP99Nodes(),
+                getMeanWallMicros(), getP99WallMicros(), getMaxWallMicros());
+    }
+}
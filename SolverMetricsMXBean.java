@@ -0,0 +1,40 @@
+// JMX view of SolverMetrics (jconsole, VisualVM, or any JMX scraper).
+// Times are in microseconds; percentiles are upper bounds of power-of-two buckets.
+public interface SolverMetricsMXBean {
+    long getSolves();
+
+    long getSolved();
+
+    long getUnsolvable();
+
+    long getAborted();
+
+    double getMeanNodes();
+
+    long getP99Nodes();
+
+    long getMaxNodes();
+
+    double getMeanBacktracks();
+
+    long getMaxDepth();
+
+    double getMeanPropagations();
+
+    double getMeanCandidateChecks();
+
+    double getMeanWallMicros();
+
+    long getP50WallMicros();
+
+    long getP99WallMicros();
+
+    long getMaxWallMicros();
+
+    // One-line form of the slowest puzzle seen so far
+    String getSlowestPuzzle();
+
+    String getJson();
+
+    void reset();
+}
@@ -1,19 +1,21 @@
 public class Sudoku {
     public static boolean isSafe(int sudoku[][],int row,int col,int digi ){
-        for(int i=0;i<=8;i++){
+        int n=sudoku.length;
+        int box=(int)Math.sqrt(n);
+        for(int i=0;i<n;i++){
             if(sudoku[i][col]==digi){
                 return false;
             }
         }
-        for(int j=0;j<=8;j++){
+        for(int j=0;j<n;j++){
             if(sudoku[row][j]==digi){
                 return false;
             }
         }
-        int sr=(row/3)*3;
-        int sc=(col/3)*3;
-        for(int i=sr;i<sr+3;i++){
-            for(int j=sc;j<sc+3;j++){
+        int sr=(row/box)*box;
+        int sc=(col/box)*box;
+        for(int i=sr;i<sr+box;i++){
+            for(int j=sc;j<sc+box;j++){
                 if(sudoku[i][j]==digi){
                     return false;
                 }
@@ -22,18 +24,23 @@ public class Sudoku {
         return true;
     }
     public static boolean sudokuSolver(int sudoku[][],int row,int col ){
-        if(row==9){
+        // whole board: solve it with the bitmask engine behind SudokuSolver
+        if(row==0&&col==0){
+            return new SudokuSolver(GridSpec.forGrid(sudoku)).solve(sudoku);
+        }
+        int n=sudoku.length;
+        if(row==n){
             return true;
         }
         int nextRow=row,nextCol=col+1;
-        if(col+1==9){
+        if(col+1==n){
             nextRow=row+1;
             nextCol=0;
         }
         if(sudoku[row][col]!=0){
             return sudokuSolver(sudoku,nextRow,nextCol);
         }
-        for(int digi=1;digi<=9;digi++){
+        for(int digi=1;digi<=n;digi++){
             if(isSafe(sudoku,row,col,digi)) {
                 sudoku[row][col] = digi;
 
@@ -46,8 +53,8 @@ public class Sudoku {
         return false;
     }
     public static void printSudoku(int[][] sudoku){
-        for(int i=0;i<=8;i++){
-            for(int j=0;j<=8;j++){
+        for(int i=0;i<sudoku.length;i++){
+            for(int j=0;j<sudoku.length;j++){
                 System.out.print(sudoku[i][j]+" ");
             }
             System.out.println();
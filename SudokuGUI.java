@@ -1,15 +1,36 @@
 import javax.swing.*;
+import javax.swing.event.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.util.*;
 
 // Main Sudoku GUI Application
 public class SudokuGUI extends JFrame {
     private SudokuBoard board;
     private SudokuSolver solver;
-    private JButton solveButton, clearButton, generateButton, resetButton, checkButton;
+    private JButton solveButton, clearButton, generateButton, resetButton, checkButton, cancelButton;
+    private JComboBox<GridSpec> sizeSelector;
+    private JComboBox<Difficulty> difficultySelector;
+    // Ready-made graded 9x9 puzzles, refilled in the background
+    private final PuzzlePool puzzlePool = new PuzzlePool().prefill();
+    // Every graded puzzle shown, with its solution, kept across sessions; null
+    // if it could not be opened, in which case nothing is remembered
+    private final PuzzleStore store = openStore();
+    private final BitmaskSolver storeSolver = new BitmaskSolver();
+    private JSpinner timeLimitSpinner;
+    private JCheckBox candidatesCheckBox;
     private JLabel statusLabel;
-    private JPanel controlPanel, boardPanel;
+    private JPanel controlPanel, optionsPanel, boardPanel;
+    // Background solve in progress, and the timer that reports its progress
+    private SwingWorker<Boolean, Void> solveTask;
+    private javax.swing.Timer progressTimer;
+    private boolean cancelRequested;
 
     public SudokuGUI() {
         setTitle("Sudoku Solver - DSA Project");
@@ -17,7 +38,14 @@ public class SudokuGUI extends JFrame {
         setLayout(new BorderLayout(10, 10));
 
         solver = new SudokuSolver();
+        solver.setStore(store);
         board = new SudokuBoard();
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                closeStore();
+            }
+        });
 
         initComponents();
         pack();
@@ -40,19 +68,47 @@ public class SudokuGUI extends JFrame {
         generateButton = new JButton("Generate Puzzle");
         resetButton = new JButton("Reset");
         checkButton = new JButton("Check Solution");
+        cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
+        sizeSelector = new JComboBox<>(new GridSpec[] { GridSpec.of(3), GridSpec.of(4), GridSpec.of(5) });
+        sizeSelector.setFont(new Font("Arial", Font.BOLD, 13));
+        difficultySelector = new JComboBox<>(Difficulty.values());
+        difficultySelector.setSelectedItem(Difficulty.MEDIUM);
+        difficultySelector.setFont(new Font("Arial", Font.BOLD, 13));
+        // Solve time budget in seconds
+        timeLimitSpinner = new JSpinner(new SpinnerNumberModel(10, 1, 600, 1));
+        timeLimitSpinner.setFont(new Font("Arial", Font.BOLD, 13));
+        candidatesCheckBox = new JCheckBox("Show candidates");
+        candidatesCheckBox.setFont(new Font("Arial", Font.BOLD, 13));
 
         styleButton(solveButton, new Color(46, 125, 50));
         styleButton(clearButton, new Color(211, 47, 47));
         styleButton(generateButton, new Color(25, 118, 210));
         styleButton(resetButton, new Color(245, 124, 0));
         styleButton(checkButton, new Color(123, 31, 162));
+        styleButton(cancelButton, new Color(97, 97, 97));
+
+        // Options Panel
+        optionsPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 0));
+        optionsPanel.add(new JLabel("Size:"));
+        optionsPanel.add(sizeSelector);
+        optionsPanel.add(new JLabel("Difficulty:"));
+        optionsPanel.add(difficultySelector);
+        optionsPanel.add(new JLabel("Time limit (s):"));
+        optionsPanel.add(timeLimitSpinner);
+        optionsPanel.add(candidatesCheckBox);
 
         controlPanel.add(generateButton);
         controlPanel.add(checkButton);
         controlPanel.add(solveButton);
+        controlPanel.add(cancelButton);
         controlPanel.add(resetButton);
         controlPanel.add(clearButton);
 
+        JPanel southPanel = new JPanel(new BorderLayout());
+        southPanel.add(optionsPanel, BorderLayout.NORTH);
+        southPanel.add(controlPanel, BorderLayout.CENTER);
+
         // Status Label
         statusLabel = new JLabel("Welcome! Generate a puzzle or enter your own.");
         statusLabel.setHorizontalAlignment(SwingConstants.CENTER);
@@ -61,13 +117,16 @@ public class SudokuGUI extends JFrame {
 
         // Add action listeners
         solveButton.addActionListener(e -> solveSudoku());
+        cancelButton.addActionListener(e -> cancelSolve());
         clearButton.addActionListener(e -> clearBoard());
         generateButton.addActionListener(e -> generatePuzzle());
         resetButton.addActionListener(e -> resetToOriginal());
         checkButton.addActionListener(e -> checkSolution());
+        sizeSelector.addActionListener(e -> changeSize((GridSpec) sizeSelector.getSelectedItem()));
+        candidatesCheckBox.addActionListener(e -> board.setShowCandidates(candidatesCheckBox.isSelected()));
 
         add(boardPanel, BorderLayout.CENTER);
-        add(controlPanel, BorderLayout.SOUTH);
+        add(southPanel, BorderLayout.SOUTH);
         add(statusLabel, BorderLayout.NORTH);
     }
 
@@ -82,18 +141,110 @@ public class SudokuGUI extends JFrame {
         button.setBorderPainted(false);
     }
 
+    // Solves on a background thread so a pathological grid never freezes the window.
+    // Progress is sampled by a Swing timer a few times a second rather than pushed
+    // from the search, so the event thread sees constant load however big the search.
     private void solveSudoku() {
         int[][] grid = board.getGrid();
         board.saveOriginal();
 
-        if (solver.solve(grid)) {
-            board.setGrid(grid);
-            statusLabel.setText("Solution found!");
-            statusLabel.setForeground(new Color(46, 125, 50));
-        } else {
-            statusLabel.setText("No solution exists for this puzzle!");
-            statusLabel.setForeground(new Color(211, 47, 47));
+        SudokuSolver taskSolver = solver;
+        taskSolver.setTimeBudget(((Number) timeLimitSpinner.getValue()).longValue() * 1000);
+        long start = System.nanoTime();
+        cancelRequested = false;
+        // Re-armed here on the event thread: a Cancel pressed before the worker
+        // gets going must not be cleared by it
+        taskSolver.resetCancel();
+        setSolving(true);
+        statusLabel.setText("Solving...");
+        statusLabel.setForeground(Color.BLACK);
+
+        progressTimer = new javax.swing.Timer(250, new ActionListener() {
+            private long lastNodes;
+            private long lastTime = start;
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                long now = System.nanoTime();
+                long nodes = taskSolver.getProgressNodes();
+                double rate = (nodes - lastNodes) * 1e9 / Math.max(1, now - lastTime);
+                lastNodes = nodes;
+                lastTime = now;
+                statusLabel.setText(String.format("Solving... %,d nodes (%,.0f nodes/sec), depth %d",
+                        nodes, rate, taskSolver.getProgressDepth()));
+            }
+        });
+        progressTimer.start();
+
+        solveTask = new SwingWorker<Boolean, Void>() {
+            @Override
+            protected Boolean doInBackground() {
+                return taskSolver.solve(grid);
+            }
+
+            @Override
+            protected void done() {
+                progressTimer.stop();
+                setSolving(false);
+                double seconds = (System.nanoTime() - start) / 1e9;
+
+                boolean solved;
+                try {
+                    solved = get();
+                } catch (Exception e) {
+                    statusLabel.setText("Solver failed: " + e.getMessage());
+                    statusLabel.setForeground(new Color(211, 47, 47));
+                    return;
+                }
+
+                if (solved) {
+                    board.setGrid(grid);
+                    statusLabel.setText(String.format("Solution found! (%.2fs)", seconds));
+                    statusLabel.setForeground(new Color(46, 125, 50));
+                } else if (taskSolver.wasAborted()) {
+                    statusLabel.setText(cancelRequested
+                            ? "Solving cancelled."
+                            : String.format("Gave up after %.0fs time limit.", seconds));
+                    statusLabel.setForeground(new Color(245, 124, 0));
+                } else {
+                    statusLabel.setText("No solution exists for this puzzle!");
+                    statusLabel.setForeground(new Color(211, 47, 47));
+                }
+            }
+        };
+        solveTask.execute();
+    }
+
+    private void cancelSolve() {
+        if (solveTask == null || solveTask.isDone()) return;
+        cancelRequested = true;
+        solver.cancel();
+        statusLabel.setText("Cancelling...");
+    }
+
+    private void setSolving(boolean solving) {
+        cancelButton.setEnabled(solving);
+        for (JComponent component : new JComponent[] {
+                solveButton, generateButton, clearButton, resetButton, checkButton, sizeSelector }) {
+            component.setEnabled(!solving);
         }
+        board.setEditable(!solving);
+    }
+
+    private void changeSize(GridSpec spec) {
+        if (spec == board.getSpec()) return;
+
+        boardPanel.remove(board);
+        board = new SudokuBoard(spec);
+        board.setShowCandidates(candidatesCheckBox.isSelected());
+        solver = new SudokuSolver(spec);
+        solver.setStore(store);
+        difficultySelector.setEnabled(spec == puzzlePool.getSpec());
+        boardPanel.add(board, BorderLayout.CENTER);
+        pack();
+        setLocationRelativeTo(null);
+        statusLabel.setText("Switched to " + spec + ". Generate a puzzle or enter your own.");
+        statusLabel.setForeground(Color.BLACK);
     }
 
     private void clearBoard() {
@@ -103,10 +254,97 @@ public class SudokuGUI extends JFrame {
     }
 
     private void generatePuzzle() {
-        int[][] puzzle = PuzzleGenerator.generate();
-        board.setGrid(puzzle);
+        GridSpec spec = board.getSpec();
+        if (spec != puzzlePool.getSpec()) {
+            showPuzzle(Board.fromGrid(PuzzleGenerator.generate(spec)), "New puzzle generated! Try to solve it.");
+            return;
+        }
+
+        // Polling checks the store and may write to it, and a dry pool means
+        // generating, so all of it runs off the event thread
+        Difficulty difficulty = (Difficulty) difficultySelector.getSelectedItem();
+        generateButton.setEnabled(false);
+        statusLabel.setText("Generating " + difficulty + " puzzle...");
+        statusLabel.setForeground(Color.BLACK);
+        new SwingWorker<Board, Void>() {
+            @Override
+            protected Board doInBackground() {
+                Board puzzle = pollUnseen(difficulty);
+                if (puzzle != null) return puzzle;
+                // Pool ran dry; pollUnseen already counted this request as a miss
+                puzzle = puzzlePool.generate(difficulty);
+                remember(puzzle, difficulty);
+                return puzzle;
+            }
+
+            @Override
+            protected void done() {
+                generateButton.setEnabled(true);
+                try {
+                    if (board.getSpec() == puzzlePool.getSpec()) {
+                        showPuzzle(get(), "New " + difficulty + " puzzle generated! Try to solve it.");
+                    }
+                } catch (Exception e) {
+                    statusLabel.setText("Puzzle generation failed: " + e.getMessage());
+                    statusLabel.setForeground(new Color(211, 47, 47));
+                }
+            }
+        }.execute();
+    }
+
+    // Next pooled puzzle not already in the store (i.e. not shown in an earlier
+    // session), trying a few; failing that the last one polled, or null if
+    // the pool is empty. Only the first poll counts toward the pool's hit rate.
+    // Runs on the generate worker, like remember(): one at a time, since the
+    // Generate button stays disabled meanwhile and storeSolver is not thread-safe.
+    private Board pollUnseen(Difficulty difficulty) {
+        Board puzzle = null;
+        for (int tries = 0; tries < 4; tries++) {
+            Board next = tries == 0 ? puzzlePool.poll(difficulty) : puzzlePool.pollAgain(difficulty);
+            if (next == null) break;
+            puzzle = next;
+            if (remember(puzzle, difficulty)) break;
+        }
+        return puzzle;
+    }
+
+    // Adds the puzzle to the store; false if it (or a symmetric copy) was already there
+    private boolean remember(Board puzzle, Difficulty difficulty) {
+        if (store == null) return true;
+        int[][] grid = puzzle.toGrid();
+        int[][] solution = puzzle.toGrid();
+        try {
+            return !storeSolver.solve(solution) || store.put(grid, solution, difficulty);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Could not store puzzle: " + e.getMessage());
+            return true;
+        }
+    }
+
+    private static PuzzleStore openStore() {
+        try {
+            return new PuzzleStore(Paths.get(System.getProperty("user.home"), ".sudoku", "puzzles"));
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Puzzle store unavailable: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Appends are synced here rather than per puzzle; after a crash the store
+    // recovers whatever reached the disk
+    private void closeStore() {
+        if (store == null) return;
+        try {
+            store.close();
+        } catch (IOException e) {
+            System.err.println("Could not close puzzle store: " + e.getMessage());
+        }
+    }
+
+    private void showPuzzle(Board puzzle, String message) {
+        board.setBoard(puzzle);
         board.saveOriginal();
-        statusLabel.setText("New puzzle generated! Try to solve it.");
+        statusLabel.setText(message);
         statusLabel.setForeground(new Color(25, 118, 210));
     }
 
@@ -116,20 +354,9 @@ public class SudokuGUI extends JFrame {
         statusLabel.setForeground(Color.BLACK);
     }
 
+    // Conflicts are tracked live as cells are edited, so checking needs no rescan
     private void checkSolution() {
-        int[][] grid = board.getGrid();
-
-        // Check if board is complete
-        boolean isComplete = true;
-        for (int i = 0; i < 9; i++) {
-            for (int j = 0; j < 9; j++) {
-                if (grid[i][j] == 0) {
-                    isComplete = false;
-                    break;
-                }
-            }
-            if (!isComplete) break;
-        }
+        boolean isComplete = board.isComplete();
 
         if (!isComplete) {
             statusLabel.setText("❌ Puzzle is incomplete! Fill all cells first.");
@@ -142,7 +369,7 @@ public class SudokuGUI extends JFrame {
         }
 
         // Check if solution is valid
-        if (solver.isValidSolution(grid)) {
+        if (board.isSolved()) {
             statusLabel.setText("✓ Correct! You solved it perfectly!");
             statusLabel.setForeground(new Color(46, 125, 50));
             JOptionPane.showMessageDialog(this,
@@ -153,7 +380,7 @@ public class SudokuGUI extends JFrame {
             statusLabel.setText("❌ Incorrect solution. Keep trying!");
             statusLabel.setForeground(new Color(211, 47, 47));
             JOptionPane.showMessageDialog(this,
-                    "The solution is incorrect. Check for duplicate numbers in rows, columns, or 3x3 boxes.",
+                    "The solution is incorrect. Check for duplicate numbers in rows, columns, or boxes.",
                     "Incorrect Solution",
                     JOptionPane.ERROR_MESSAGE);
         }
@@ -174,335 +401,223 @@ public class SudokuGUI extends JFrame {
 
 // Sudoku Board GUI Component
 class SudokuBoard extends JPanel {
+    private static final Color CONFLICT_COLOR = new Color(255, 205, 210);
+
     private JTextField[][] cells;
     private int[][] originalGrid;
-    private static final int SIZE = 9;
-    private static final int SUBGRID = 3;
+    private final GridSpec spec;
+    private final int size;
+    private final int subgrid;
+    private final int fontSize;
+
+    // Live model of the typed digits, updated on every edit of a single cell
+    private final ConstraintTracker tracker;
+    private final Color[] baseColors;
+    // Reused buffer for reading a cell's text without creating Strings
+    private final Segment text = new Segment();
+    private boolean showCandidates;
 
     public SudokuBoard() {
-        setLayout(new GridLayout(SIZE, SIZE, 2, 2));
-        setPreferredSize(new Dimension(450, 450));
+        this(GridSpec.CLASSIC);
+    }
+
+    public SudokuBoard(GridSpec spec) {
+        this.spec = spec;
+        this.size = spec.size;
+        this.subgrid = spec.subgrid;
+        // 50px cells at 9x9, shrinking so 25x25 still fits on screen
+        int cellSize = Math.max(30, Math.min(50, 720 / size));
+        fontSize = cellSize * 2 / 5;
+
+        setLayout(new GridLayout(size, size, 2, 2));
+        setPreferredSize(new Dimension(cellSize * size, cellSize * size));
         setBorder(BorderFactory.createLineBorder(Color.BLACK, 2));
         setBackground(Color.BLACK);
 
-        cells = new JTextField[SIZE][SIZE];
-        originalGrid = new int[SIZE][SIZE];
+        cells = new JTextField[size][size];
+        originalGrid = new int[size][size];
+        tracker = new ConstraintTracker(spec);
+        baseColors = new Color[spec.cells];
         initCells();
     }
 
+    public GridSpec getSpec() {
+        return spec;
+    }
+
     private void initCells() {
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                cells[i][j] = new JTextField();
+        Font hintFont = new Font("Arial", Font.PLAIN, Math.max(9, fontSize / 2));
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                final int cell = spec.cell(i, j);
+                // Empty cells can show how many digits are still possible there
+                cells[i][j] = new JTextField() {
+                    @Override
+                    protected void paintComponent(Graphics g) {
+                        super.paintComponent(g);
+                        if (showCandidates && tracker.get(cell) == 0 && getDocument().getLength() == 0) {
+                            int count = tracker.candidateCount(cell);
+                            g.setFont(hintFont);
+                            g.setColor(count == 0 ? Color.RED : Color.GRAY);
+                            g.drawString(Integer.toString(count), 3, hintFont.getSize() + 1);
+                        }
+                    }
+                };
                 cells[i][j].setHorizontalAlignment(JTextField.CENTER);
-                cells[i][j].setFont(new Font("Arial", Font.BOLD, 20));
+                cells[i][j].setFont(new Font("Arial", Font.BOLD, fontSize));
 
-                // Color coding for 3x3 subgrids
-                if ((i / SUBGRID + j / SUBGRID) % 2 == 0) {
-                    cells[i][j].setBackground(new Color(230, 230, 250));
+                // Color coding for subgrids
+                if ((i / subgrid + j / subgrid) % 2 == 0) {
+                    baseColors[cell] = new Color(230, 230, 250);
                 } else {
-                    cells[i][j].setBackground(Color.WHITE);
+                    baseColors[cell] = Color.WHITE;
                 }
+                cells[i][j].setBackground(baseColors[cell]);
 
-                // Input validation
+                // Input validation: digits only, as many as the largest value needs
                 final int row = i, col = j;
+                final int maxLength = String.valueOf(size).length();
                 cells[i][j].addKeyListener(new KeyAdapter() {
                     @Override
                     public void keyTyped(KeyEvent e) {
                         char c = e.getKeyChar();
-                        if (!(Character.isDigit(c) && c >= '1' && c <= '9') && c != KeyEvent.VK_BACK_SPACE) {
+                        char lowest = maxLength == 1 ? '1' : '0';
+                        if (!(Character.isDigit(c) && c >= lowest && c <= '9') && c != KeyEvent.VK_BACK_SPACE) {
                             e.consume();
                         }
-                        if (cells[row][col].getText().length() >= 1 && c != KeyEvent.VK_BACK_SPACE) {
+                        if (cells[row][col].getText().length() >= maxLength && c != KeyEvent.VK_BACK_SPACE) {
                             e.consume();
                         }
                     }
                 });
 
-                add(cells[i][j]);
-            }
-        }
-    }
-
-    public int[][] getGrid() {
-        int[][] grid = new int[SIZE][SIZE];
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                String text = cells[i][j].getText().trim();
-                grid[i][j] = text.isEmpty() ? 0 : Integer.parseInt(text);
-            }
-        }
-        return grid;
-    }
-
-    public void setGrid(int[][] grid) {
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                if (grid[i][j] == 0) {
-                    cells[i][j].setText("");
-                } else {
-                    cells[i][j].setText(String.valueOf(grid[i][j]));
-                }
-
-                // Mark original numbers
-                if (originalGrid[i][j] != 0) {
-                    cells[i][j].setForeground(Color.BLACK);
-                    cells[i][j].setFont(new Font("Arial", Font.BOLD, 20));
-                } else {
-                    cells[i][j].setForeground(new Color(25, 118, 210));
-                    cells[i][j].setFont(new Font("Arial", Font.PLAIN, 20));
-                }
-            }
-        }
-    }
+                // Typing, pasting and setText all land here, so the tracker never goes stale
+                cells[i][j].getDocument().addDocumentListener(new DocumentListener() {
+                    @Override
+                    public void insertUpdate(DocumentEvent e) {
+                        cellEdited(cell, e.getDocument());
+                    }
 
-    public void saveOriginal() {
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                String text = cells[i][j].getText().trim();
-                originalGrid[i][j] = text.isEmpty() ? 0 : Integer.parseInt(text);
-            }
-        }
-    }
+                    @Override
+                    public void removeUpdate(DocumentEvent e) {
+                        cellEdited(cell, e.getDocument());
+                    }
 
-    public void resetToOriginal() {
-        setGrid(originalGrid);
-    }
+                    @Override
+                    public void changedUpdate(DocumentEvent e) {
+                    }
+                });
 
-    public void clear() {
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                cells[i][j].setText("");
-                originalGrid[i][j] = 0;
+                add(cells[i][j]);
             }
         }
     }
-}
-
-// Sudoku Solver with Backtracking
-class SudokuSolver {
-    private static final int SIZE = 9;
-    private static final int SUBGRID = 3;
-
-    // Data Structures Used:
-    // 1. HashSet for checking validity (O(1) lookup)
-    // 2. Stack for backtracking (implicit in recursion)
-    // 3. 2D Array for grid representation
 
-    public boolean solve(int[][] grid) {
-        return backtrack(grid, 0, 0);
+    // Updates the tracker for one cell and repaints only the units it touches
+    private void cellEdited(int cell, Document document) {
+        int digit = parseDigit(document);
+        if (tracker.set(cell, digit) == digit) return;
+        refreshUnit(spec.units[spec.rowOf[cell]]);
+        refreshUnit(spec.units[size + spec.colOf[cell]]);
+        refreshUnit(spec.units[2 * size + spec.boxOf[cell]]);
     }
 
-    // Check if a completed grid is a valid solution
-    public boolean isValidSolution(int[][] grid) {
-        // Check all rows
-        for (int i = 0; i < SIZE; i++) {
-            if (!isValidRow(grid, i)) return false;
-        }
-
-        // Check all columns
-        for (int j = 0; j < SIZE; j++) {
-            if (!isValidColumn(grid, j)) return false;
+    // Digit typed into a cell; anything empty, non-numeric or out of range counts as blank
+    private int parseDigit(Document document) {
+        try {
+            document.getText(0, document.getLength(), text);
+        } catch (BadLocationException e) {
+            return 0;
         }
-
-        // Check all 3x3 subgrids
-        for (int row = 0; row < SIZE; row += SUBGRID) {
-            for (int col = 0; col < SIZE; col += SUBGRID) {
-                if (!isValidSubgrid(grid, row, col)) return false;
-            }
+        int digit = 0;
+        for (char c = text.first(); c != Segment.DONE; c = text.next()) {
+            if (c == ' ') continue;
+            if (c < '0' || c > '9') return 0;
+            digit = digit * 10 + (c - '0');
+            if (digit > size) return 0;
         }
-
-        return true;
+        return digit;
     }
 
-    private boolean isValidRow(int[][] grid, int row) {
-        HashSet<Integer> seen = new HashSet<>();
-        for (int j = 0; j < SIZE; j++) {
-            int num = grid[row][j];
-            if (num < 1 || num > 9 || seen.contains(num)) {
-                return false;
-            }
-            seen.add(num);
+    private void refreshUnit(int[] unit) {
+        for (int cell : unit) {
+            JTextField field = cells[spec.rowOf[cell]][spec.colOf[cell]];
+            field.setBackground(tracker.isConflict(cell) ? CONFLICT_COLOR : baseColors[cell]);
+            if (showCandidates) field.repaint();
         }
-        return true;
     }
 
-    private boolean isValidColumn(int[][] grid, int col) {
-        HashSet<Integer> seen = new HashSet<>();
-        for (int i = 0; i < SIZE; i++) {
-            int num = grid[i][col];
-            if (num < 1 || num > 9 || seen.contains(num)) {
-                return false;
-            }
-            seen.add(num);
-        }
-        return true;
+    // Draws the live candidate count in the corner of every empty cell
+    public void setShowCandidates(boolean show) {
+        showCandidates = show;
+        repaint();
     }
 
-    private boolean isValidSubgrid(int[][] grid, int startRow, int startCol) {
-        HashSet<Integer> seen = new HashSet<>();
-        for (int i = startRow; i < startRow + SUBGRID; i++) {
-            for (int j = startCol; j < startCol + SUBGRID; j++) {
-                int num = grid[i][j];
-                if (num < 1 || num > 9 || seen.contains(num)) {
-                    return false;
-                }
-                seen.add(num);
-            }
-        }
-        return true;
+    public boolean isComplete() {
+        return tracker.isComplete();
     }
 
-    private boolean backtrack(int[][] grid, int row, int col) {
-        // Base case: reached end of grid
-        if (row == SIZE) {
-            return true;
-        }
-
-        // Calculate next position
-        int nextRow = (col == SIZE - 1) ? row + 1 : row;
-        int nextCol = (col == SIZE - 1) ? 0 : col + 1;
-
-        // Skip filled cells
-        if (grid[row][col] != 0) {
-            return backtrack(grid, nextRow, nextCol);
-        }
-
-        // Try digits 1-9
-        for (int digit = 1; digit <= 9; digit++) {
-            if (isValid(grid, row, col, digit)) {
-                grid[row][col] = digit;
-
-                if (backtrack(grid, nextRow, nextCol)) {
-                    return true;
-                }
-
-                // Backtrack
-                grid[row][col] = 0;
-            }
-        }
-
-        return false;
+    public boolean hasConflicts() {
+        return tracker.hasConflicts();
     }
 
-    private boolean isValid(int[][] grid, int row, int col, int digit) {
-        // Using HashSet for efficient checking (Data Structure #1)
-
-        // Check row
-        for (int j = 0; j < SIZE; j++) {
-            if (grid[row][j] == digit) {
-                return false;
-            }
-        }
-
-        // Check column
-        for (int i = 0; i < SIZE; i++) {
-            if (grid[i][col] == digit) {
-                return false;
-            }
-        }
-
-        // Check 3x3 subgrid
-        int startRow = (row / SUBGRID) * SUBGRID;
-        int startCol = (col / SUBGRID) * SUBGRID;
-
-        for (int i = startRow; i < startRow + SUBGRID; i++) {
-            for (int j = startCol; j < startCol + SUBGRID; j++) {
-                if (grid[i][j] == digit) {
-                    return false;
-                }
-            }
-        }
-
-        return true;
+    public boolean isSolved() {
+        return tracker.isSolved();
     }
-}
 
-// Puzzle Generator
-class PuzzleGenerator {
-    private static final int SIZE = 9;
-    private static final int SUBGRID = 3;
-    private static Random random = new Random();
-
-    public static int[][] generate() {
-        int[][] grid = new int[SIZE][SIZE];
-        fillDiagonalSubgrids(grid);
-        solveSudoku(grid);
-        removeNumbers(grid, 40); // Remove 40 numbers for medium difficulty
+    public int[][] getGrid() {
+        int[][] grid = new int[size][size];
+        tracker.copyInto(grid);
         return grid;
     }
 
-    private static void fillDiagonalSubgrids(int[][] grid) {
-        for (int i = 0; i < SIZE; i += SUBGRID) {
-            fillSubgrid(grid, i, i);
-        }
+    public void setBoard(Board board) {
+        setGrid(board.toGrid());
     }
 
-    private static void fillSubgrid(int[][] grid, int row, int col) {
-        ArrayList<Integer> numbers = new ArrayList<>();
-        for (int i = 1; i <= 9; i++) {
-            numbers.add(i);
-        }
-        Collections.shuffle(numbers);
+    public void setGrid(int[][] grid) {
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (grid[i][j] == 0) {
+                    cells[i][j].setText("");
+                } else {
+                    cells[i][j].setText(String.valueOf(grid[i][j]));
+                }
 
-        int index = 0;
-        for (int i = 0; i < SUBGRID; i++) {
-            for (int j = 0; j < SUBGRID; j++) {
-                grid[row + i][col + j] = numbers.get(index++);
+                // Mark original numbers
+                if (originalGrid[i][j] != 0) {
+                    cells[i][j].setForeground(Color.BLACK);
+                    cells[i][j].setFont(new Font("Arial", Font.BOLD, fontSize));
+                } else {
+                    cells[i][j].setForeground(new Color(25, 118, 210));
+                    cells[i][j].setFont(new Font("Arial", Font.PLAIN, fontSize));
+                }
             }
         }
     }
 
-    private static boolean solveSudoku(int[][] grid) {
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
-                if (grid[row][col] == 0) {
-                    for (int num = 1; num <= 9; num++) {
-                        if (isValidPlacement(grid, row, col, num)) {
-                            grid[row][col] = num;
-                            if (solveSudoku(grid)) {
-                                return true;
-                            }
-                            grid[row][col] = 0;
-                        }
-                    }
-                    return false;
-                }
-            }
-        }
-        return true;
+    public void saveOriginal() {
+        tracker.copyInto(originalGrid);
     }
 
-    private static void removeNumbers(int[][] grid, int count) {
-        while (count > 0) {
-            int row = random.nextInt(SIZE);
-            int col = random.nextInt(SIZE);
+    public void resetToOriginal() {
+        setGrid(originalGrid);
+    }
 
-            if (grid[row][col] != 0) {
-                grid[row][col] = 0;
-                count--;
+    public void setEditable(boolean editable) {
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                cells[i][j].setEditable(editable);
             }
         }
     }
 
-    private static boolean isValidPlacement(int[][] grid, int row, int col, int num) {
-        for (int j = 0; j < SIZE; j++) {
-            if (grid[row][j] == num) return false;
-        }
-
-        for (int i = 0; i < SIZE; i++) {
-            if (grid[i][col] == num) return false;
-        }
-
-        int startRow = (row / SUBGRID) * SUBGRID;
-        int startCol = (col / SUBGRID) * SUBGRID;
-
-        for (int i = startRow; i < startRow + SUBGRID; i++) {
-            for (int j = startCol; j < startCol + SUBGRID; j++) {
-                if (grid[i][j] == num) return false;
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                cells[i][j].setText("");
+                originalGrid[i][j] = 0;
             }
         }
-
-        return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,152 @@
+import java.io.*;
+import java.net.URI;
+import java.net.http.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// Sudoku Load Client
+// Stand-in for real callers of SudokuServer: a number of virtual-thread
+// workers each post batches of puzzles to /solve back to back for a fixed
+// time, then it reports throughput and exact latency percentiles. 503
+// answers are counted as rejections, with latencies of their own, and
+// retried after the Retry-After delay (cut short by the end of the run).
+// With no server URL it starts an in-process server on a free port.
+//
+// Usage: java SudokuLoadClient [url|-] [concurrency] [seconds] [batch] [puzzle-file]
+class SudokuLoadClient {
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "-";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int batch = args.length > 3 ? Integer.parseInt(args[3]) : 16;
+
+        List<String> puzzles = args.length > 4 ? readPuzzles(Paths.get(args[4])) : generatePuzzles(500);
+        SudokuServer local = null;
+        if (url.equals("-")) {
+            local = new SudokuServer(0, Runtime.getRuntime().availableProcessors(), 4 * concurrency).start();
+            url = "http://localhost:" + local.getPort();
+        }
+        URI solve = URI.create(url + "/solve?timeoutMs=1000");
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        List<long[]> latencies = Collections.synchronizedList(new ArrayList<>());
+        List<long[]> rejectedLatencies = Collections.synchronizedList(new ArrayList<>());
+        LongAdder requests = new LongAdder();
+        LongAdder solved = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        LongAdder failed = new LongAdder();
+
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < concurrency; w++) {
+                int worker = w;
+                workers.submit(() -> {
+                    // Each worker keeps its own latency logs and hands them over once at the end
+                    LatencyLog own = new LatencyLog();
+                    LatencyLog ownRejected = new LatencyLog();
+                    int next = worker * batch;
+                    while (System.nanoTime() < end) {
+                        StringBuilder body = new StringBuilder(batch * 82);
+                        for (int i = 0; i < batch; i++) {
+                            body.append(puzzles.get(next++ % puzzles.size())).append('\n');
+                        }
+                        HttpRequest request = HttpRequest.newBuilder(solve)
+                                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                                .header("Content-Type", "text/plain")
+                                .build();
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                            long took = System.nanoTime() - sent;
+                            if (response.statusCode() == 503) {
+                                rejected.increment();
+                                ownRejected.add(took);
+                                long waitMillis = response.headers().firstValueAsLong("Retry-After").orElse(1) * 1000;
+                                Thread.sleep(Math.max(0, Math.min(waitMillis, (end - System.nanoTime()) / 1_000_000)));
+                                continue;
+                            }
+                            if (response.statusCode() != 200) {
+                                failed.increment();
+                                continue;
+                            }
+                            own.add(took);
+                            requests.increment();
+                            solved.add(response.body().lines().filter(line -> line.indexOf('.') < 0 && line.indexOf('?') < 0).count());
+                        } catch (IOException e) {
+                            failed.increment();
+                        }
+                    }
+                    latencies.add(own.toArray());
+                    rejectedLatencies.add(ownRejected.toArray());
+                    return null;
+                });
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf(Locale.ROOT, "%d workers, batch %d, %.1f s%n", concurrency, batch, elapsed);
+        System.out.printf(Locale.ROOT, "requests: %d (%.0f/s), puzzles solved: %d (%.0f/s), rejected: %d, failed: %d%n",
+                requests.sum(), requests.sum() / elapsed, solved.sum(), solved.sum() / elapsed,
+                rejected.sum(), failed.sum());
+        printLatencies("latency ms", latencies);
+        printLatencies("rejected latency ms", rejectedLatencies);
+        if (local != null) {
+            System.out.println(local.getMetrics());
+            local.stop();
+        }
+    }
+
+    // Request latencies in nanoseconds, appended by one worker
+    private static final class LatencyLog {
+        private long[] nanos = new long[1024];
+        private int count;
+
+        void add(long took) {
+            if (count == nanos.length) nanos = Arrays.copyOf(nanos, count * 2);
+            nanos[count++] = took;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(nanos, count);
+        }
+    }
+
+    // Percentiles of all workers' logs together; nothing if they are empty
+    private static void printLatencies(String label, List<long[]> logs) {
+        long[] all = logs.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        if (all.length == 0) return;
+        System.out.printf(Locale.ROOT, "%s: p50 %.2f  p90 %.2f  p99 %.2f  max %.2f%n", label,
+                percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), all[all.length - 1] / 1e6);
+    }
+
+    // Exact nearest-rank percentile of sorted nanosecond latencies, in milliseconds
+    private static double percentile(long[] sorted, double q) {
+        int rank = (int) Math.ceil(q * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+
+    private static List<String> readPuzzles(Path file) throws IOException {
+        List<String> puzzles = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                line = line.trim();
+                if (!line.isEmpty()) puzzles.add(line);
+            }
+        }
+        return puzzles;
+    }
+
+    private static List<String> generatePuzzles(int count) {
+        List<String> puzzles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            puzzles.add(PuzzleGenerator.generateBoard(GridSpec.CLASSIC).toString());
+        }
+        return puzzles;
+    }
+}
@@ -0,0 +1,374 @@
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Headless Sudoku HTTP Service
+// Serves solve, validate, count and generate over the JDK's built-in HttpServer,
+// one virtual thread per request. Solving is CPU-bound, so requests borrow one
+// of a fixed number of solvers (one per core by default) rather than each
+// getting its own; at most maxQueued requests may wait for one, and the rest
+// are turned away at once with 503 + Retry-After instead of piling up.
+//
+// Every endpoint takes a batch: puzzles in the one-line text form ('1'-'9',
+// then 'A'-'Z'; '.' or '0' for blanks), one per line. With
+// Content-Type: application/x-sudoku-packed the body is instead back-to-back
+// packed boards (Board.pack(), 41 bytes for 9x9) and /solve answers with one
+// status byte ('S' solved, 'U' unsolvable, 'B' over budget) plus a packed
+// board per puzzle. Each solve or count stops at 2 s or 10M nodes (clients
+// may ask for less) and a whole batch at 10 s; puzzles cut off come back as
+// over budget.
+//
+//   POST /solve[?timeoutMs=&maxNodes=]  solution per line; '.' line if unsolvable, '?' line if over budget
+//   POST /validate                      "solved", "valid" or "conflict <cell,cell,...>" per line
+//   POST /count[?limit=2]               solution count per line, "~<n>" if the budget cut it short
+//   GET  /generate?count=&difficulty=&size=  text up to size=5 (25x25), packed (Accept) up to 8
+//   GET  /metrics                       SolverMetrics as JSON
+//
+// Usage: java SudokuServer [port] [solvers] [maxQueued]
+class SudokuServer {
+    private static final System.Logger LOG = System.getLogger(SudokuServer.class.getName());
+    static final String PACKED = "application/x-sudoku-packed";
+    private static final int MAX_BATCH = 10_000;
+    // Puzzles per /generate at 9x9; larger sizes get proportionally fewer
+    private static final int MAX_GENERATE = 1_000;
+    // The text form runs out of symbols ('Z' is 35) above 25x25
+    private static final int MAX_TEXT_SUBGRID = 5;
+    private static final int MAX_BODY = 4 << 20;
+    // Server-side ceiling on any one solve; clients may only ask for less
+    private static final long MAX_TIMEOUT_MILLIS = 2_000;
+    private static final long MAX_NODES = 10_000_000;
+    // Ceiling on a whole /solve or /count batch, counted from its arrival;
+    // puzzles still waiting when it passes come back over budget
+    private static final long MAX_REQUEST_MILLIS = 10_000;
+
+    static {
+        // The JDK server leaves Nagle on by default, which adds ~40 ms of delayed-ACK
+        // stall to every small response; a property only takes effect before first use
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final int solverCount;
+    private final Semaphore admission;
+    private final Map<GridSpec, BlockingQueue<SudokuSolver>> solvers = new ConcurrentHashMap<>();
+    private final SolutionCache cache = new SolutionCache(100_000);
+    private final SolverMetrics metrics = new SolverMetrics();
+    private final PuzzlePool pool = new PuzzlePool();
+
+    public SudokuServer(int port, int solverCount, int maxQueued) throws IOException {
+        this.solverCount = solverCount;
+        this.admission = new Semaphore(solverCount + maxQueued);
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/solve", exchange -> handle(exchange, "POST", this::solve));
+        server.createContext("/validate", exchange -> handle(exchange, "POST", this::validate));
+        server.createContext("/count", exchange -> handle(exchange, "POST", this::count));
+        server.createContext("/generate", exchange -> handle(exchange, "GET", this::generate));
+        server.createContext("/metrics", exchange -> handle(exchange, "GET",
+                e -> reply(e, 200, "application/json", metrics.toJson().getBytes(StandardCharsets.UTF_8))));
+    }
+
+    public SudokuServer start() {
+        pool.prefill();
+        server.start();
+        return this;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public SolverMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+        pool.shutdown();
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException, InterruptedException;
+    }
+
+    // Shared admission control and error mapping for every endpoint
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals(method)) {
+                replyText(exchange, 405, method + " only\n");
+                return;
+            }
+            if (!admission.tryAcquire()) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                replyText(exchange, 503, "Busy, retry shortly\n");
+                return;
+            }
+            try {
+                handler.handle(exchange);
+            } catch (IllegalArgumentException e) {
+                replyText(exchange, 400, e.getMessage() + "\n");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                replyText(exchange, 503, "Shutting down\n");
+            } catch (RuntimeException e) {
+                LOG.log(System.Logger.Level.ERROR, method + " " + exchange.getRequestURI() + " failed", e);
+                replyText(exchange, 500, "Internal error: " + e + "\n");
+            } finally {
+                admission.release();
+            }
+        }
+    }
+
+    private void solve(HttpExchange exchange) throws IOException, InterruptedException {
+        Map<String, String> query = query(exchange.getRequestURI());
+        SolveOptions options = requestBounds()
+                .withTimeout(limitParam(query, "timeoutMs", MAX_TIMEOUT_MILLIS))
+                .withNodeBudget(limitParam(query, "maxNodes", MAX_NODES));
+        boolean packed = isPacked(exchange);
+        List<Board> puzzles = readPuzzles(exchange, packed);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        withSolver(puzzles, solver -> {
+            for (Board puzzle : puzzles) {
+                SolveResult result = solver.solve(puzzle.toGrid(), options);
+                if (packed) {
+                    out.write(statusByte(result.getStatus()));
+                    Board answer = result.isSolved() ? Board.fromGrid(result.getSolution()) : puzzle;
+                    out.write(answer.pack());
+                } else {
+                    out.write(solutionLine(puzzle, result));
+                    out.write('\n');
+                }
+            }
+        });
+        reply(exchange, 200, packed ? PACKED : "text/plain", out.toByteArray());
+    }
+
+    private void validate(HttpExchange exchange) throws IOException, InterruptedException {
+        List<Board> puzzles = readPuzzles(exchange, isPacked(exchange));
+        StringBuilder out = new StringBuilder();
+        withSolver(puzzles, solver -> {
+            for (Board puzzle : puzzles) {
+                GridValidator.Result result = solver.validate(puzzle.toGrid());
+                if (result.isSolved()) {
+                    out.append("solved");
+                } else if (result.isValid()) {
+                    out.append("valid");
+                } else {
+                    out.append("conflict ");
+                    for (int i = 0; i < result.conflictCellCount(); i++) {
+                        if (i > 0) out.append(',');
+                        out.append(result.conflictCell(i));
+                    }
+                }
+                out.append('\n');
+            }
+        });
+        replyText(exchange, 200, out.toString());
+    }
+
+    private void count(HttpExchange exchange) throws IOException, InterruptedException {
+        Map<String, String> query = query(exchange.getRequestURI());
+        long limit = Math.max(1, Math.min(MAX_BATCH, longParam(query, "limit", 2)));
+        SolveOptions options = requestBounds().withTimeout(MAX_TIMEOUT_MILLIS).withNodeBudget(MAX_NODES);
+        List<Board> puzzles = readPuzzles(exchange, isPacked(exchange));
+        StringBuilder out = new StringBuilder();
+        withSolver(puzzles, solver -> {
+            for (Board puzzle : puzzles) {
+                long found = solver.countSolutions(puzzle.toGrid(), limit, options);
+                out.append(solver.wasAborted() ? "~" : "").append(found).append('\n');
+            }
+        });
+        replyText(exchange, 200, out.toString());
+    }
+
+    private void generate(HttpExchange exchange) throws IOException {
+        Map<String, String> query = query(exchange.getRequestURI());
+        GridSpec spec = GridSpec.of((int) longParam(query, "size", 3));
+        int maxCount = Math.max(1, MAX_GENERATE * GridSpec.CLASSIC.cells / spec.cells);
+        int count = (int) Math.max(1, Math.min(maxCount, longParam(query, "count", 1)));
+        Difficulty difficulty = Difficulty.valueOf(query.getOrDefault("difficulty", "MEDIUM").toUpperCase(Locale.ROOT));
+        boolean packed = PACKED.equals(exchange.getRequestHeaders().getFirst("Accept"));
+        if (!packed && spec.subgrid > MAX_TEXT_SUBGRID) {
+            throw new IllegalArgumentException("Boards over 25x25 need Accept: " + PACKED);
+        }
+        // Completing a large grid can take the engine a long way, so the whole request
+        // shares one solve's worth of time and each grid gets one solve's worth of nodes
+        SolveOptions bounds = SolveOptions.UNBOUNDED
+                .withDeadline(System.nanoTime() + MAX_TIMEOUT_MILLIS * 1_000_000)
+                .withNodeBudget(MAX_NODES);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < count; i++) {
+            // Graded 9x9 puzzles come ready-made from the pool; other sizes are generated here
+            Board puzzle = spec == pool.getSpec() ? pool.take(difficulty) : PuzzleGenerator.generateBoard(spec, bounds);
+            if (puzzle == null) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                replyText(exchange, 503, "Generated " + i + " of " + count + " " + spec + " boards before running out of time\n");
+                return;
+            }
+            if (packed) {
+                out.write(puzzle.pack());
+            } else {
+                out.write(puzzle.toString().getBytes(StandardCharsets.US_ASCII));
+                out.write('\n');
+            }
+        }
+        reply(exchange, 200, packed ? PACKED : "text/plain", out.toByteArray());
+    }
+
+    private interface SolverTask {
+        void run(SudokuSolver solver) throws IOException;
+    }
+
+    // Runs the batch on a borrowed solver for the puzzles' size, waiting for one if all are busy
+    private void withSolver(List<Board> puzzles, SolverTask task) throws IOException, InterruptedException {
+        if (puzzles.isEmpty()) return;
+        GridSpec spec = puzzles.get(0).getSpec();
+        BlockingQueue<SudokuSolver> available = solvers.computeIfAbsent(spec, this::newSolvers);
+        SudokuSolver solver = available.take();
+        try {
+            task.run(solver);
+        } finally {
+            available.add(solver);
+        }
+    }
+
+    private BlockingQueue<SudokuSolver> newSolvers(GridSpec spec) {
+        BlockingQueue<SudokuSolver> queue = new ArrayBlockingQueue<>(solverCount);
+        for (int i = 0; i < solverCount; i++) {
+            SudokuSolver solver = new SudokuSolver(spec);
+            // Randomized restarts keep one unlucky puzzle from holding a solver for the
+            // whole timeout; median solve cost is unchanged
+            solver.setStrategy(BitmaskSolver.Strategy.RESTARTS);
+            solver.setSeed(i);
+            solver.setCache(cache);
+            solver.setMetrics(metrics);
+            queue.add(solver);
+        }
+        return queue;
+    }
+
+    private List<Board> readPuzzles(HttpExchange exchange, boolean packed) throws IOException {
+        byte[] body = exchange.getRequestBody().readNBytes(MAX_BODY + 1);
+        if (body.length > MAX_BODY) throw new IllegalArgumentException("Request body over " + MAX_BODY + " bytes");
+
+        List<Board> puzzles = new ArrayList<>();
+        if (packed) {
+            GridSpec spec = GridSpec.of((int) longParam(query(exchange.getRequestURI()), "size", 3));
+            int length = packedLength(spec);
+            if (body.length % length != 0) {
+                throw new IllegalArgumentException("Packed body is not a whole number of " + length + "-byte boards");
+            }
+            for (int offset = 0; offset < body.length; offset += length) {
+                Board puzzle = Board.unpack(spec, Arrays.copyOfRange(body, offset, offset + length));
+                for (int cell = 0; cell < spec.cells; cell++) {
+                    if (puzzle.get(cell) > spec.size) {
+                        throw new IllegalArgumentException("Digit out of range in packed board " + puzzles.size());
+                    }
+                }
+                puzzles.add(puzzle);
+            }
+        } else {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new ByteArrayInputStream(body), StandardCharsets.US_ASCII));
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                line = line.trim();
+                if (!line.isEmpty()) puzzles.add(Board.parse(line));
+            }
+        }
+
+        if (puzzles.size() > MAX_BATCH) throw new IllegalArgumentException("At most " + MAX_BATCH + " puzzles per request");
+        for (Board puzzle : puzzles) {
+            if (puzzle.getSpec() != puzzles.get(0).getSpec()) {
+                throw new IllegalArgumentException("All puzzles in a batch must be the same size");
+            }
+        }
+        return puzzles;
+    }
+
+    static int packedLength(GridSpec spec) {
+        return spec.size > 15 ? spec.cells : (spec.cells + 1) / 2;
+    }
+
+    private static boolean isPacked(HttpExchange exchange) {
+        return PACKED.equals(exchange.getRequestHeaders().getFirst("Content-Type"));
+    }
+
+    private static byte[] solutionLine(Board puzzle, SolveResult result) {
+        if (result.isSolved()) return Board.fromGrid(result.getSolution()).toString().getBytes(StandardCharsets.US_ASCII);
+        byte[] line = new byte[puzzle.getSpec().cells];
+        Arrays.fill(line, (byte) (result.getStatus() == SolveResult.Status.UNSOLVABLE ? '.' : '?'));
+        return line;
+    }
+
+    private static int statusByte(SolveResult.Status status) {
+        switch (status) {
+            case SOLVED: return 'S';
+            case UNSOLVABLE: return 'U';
+            default: return 'B';
+        }
+    }
+
+    private static Map<String, String> query(URI uri) {
+        Map<String, String> params = new HashMap<>();
+        String raw = uri.getRawQuery();
+        if (raw == null) return params;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) params.put(pair.substring(0, eq), pair.substring(eq + 1));
+        }
+        return params;
+    }
+
+    private static SolveOptions requestBounds() {
+        return SolveOptions.UNBOUNDED.withDeadline(System.nanoTime() + MAX_REQUEST_MILLIS * 1_000_000);
+    }
+
+    // A client's limit, capped at the server's; 0 would mean none to SolveOptions, so it is refused
+    private static long limitParam(Map<String, String> query, String name, long max) {
+        long value = longParam(query, name, max);
+        if (value <= 0) throw new IllegalArgumentException(name + " must be positive");
+        return Math.min(max, value);
+    }
+
+    private static long longParam(Map<String, String> query, String name, long fallback) {
+        String value = query.get(name);
+        if (value == null) return fallback;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad number for " + name + ": " + value);
+        }
+    }
+
+    private static void replyText(HttpExchange exchange, int status, String text) throws IOException {
+        reply(exchange, status, "text/plain", text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void reply(HttpExchange exchange, int status, String type, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", type);
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) exchange.getResponseBody().write(body);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int solverCount = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int maxQueued = args.length > 2 ? Integer.parseInt(args[2]) : 4 * solverCount;
+
+        SudokuServer server = new SudokuServer(port, solverCount, maxQueued).start();
+        server.getMetrics().registerMBean("server");
+        System.err.println("Sudoku service on port " + server.getPort() + " with " + solverCount
+                + " solvers, " + maxQueued + " queued requests max");
+    }
+}
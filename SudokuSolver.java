@@ -1,75 +1,283 @@
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.*;
 
 // Sudoku Solver with Backtracking
 class SudokuSolver {
-    private static final int SIZE = 9;
-    private static final int SUBGRID = 3;
+    // Data Structures Used:
+    // 1. Bitmask accumulation for checking validity (see GridValidator)
+    // 2. Bitmasks per row/column/box for candidate sets (see BitmaskSolver)
+    // 3. Explicit stack of branch frames and a trail for backtracking (see BitmaskSolver)
+    // 4. 2D Array for grid representation
+    private final BitmaskSolver engine;
+    private final GridValidator validator;
+    private final GridSpec spec;
+    private ParallelSolver parallel;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private long timeBudgetMillis;
+    private SolutionCache cache;
+    private PuzzleStore store;
+    private SolverMetrics metrics;
+    // Restart searches raced per solve (see ParallelSolver.race), seeded from random
+    private int racers;
+    private ParallelSolver racePool;
+    // Whichever of parallel and racePool ran the last solve or count; null if the engine did
+    private ParallelSolver lastPool;
+    private SplittableRandom random = new SplittableRandom();
+    // How the engine search inside a bounded solve ended; null if the store or cache answered
+    private SolveResult.Status engineStatus;
+    // Scratch copy of the givens for metrics (see solveUncached)
+    private int[][] givens;
+
+    public SudokuSolver() {
+        this(GridSpec.CLASSIC);
+    }
+
+    public SudokuSolver(GridSpec spec) {
+        engine = new BitmaskSolver(spec);
+        validator = new GridValidator(spec);
+        engine.setStopFlag(cancelled);
+        this.spec = spec;
+    }
 
     public boolean solve(int[][] grid) {
-        return backtrack(grid, 0, 0);
+        if (store != null && store.lookup(grid)) return true;
+        if (cache != null) return cache.solve(grid, this::solveUncached);
+        return solveUncached(grid);
     }
 
-    public boolean isValidSolution(int[][] grid) {
-        for (int i = 0; i < SIZE; i++) {
-            if (!isValidRow(grid, i) || !isValidColumn(grid, i)) return false;
+    private boolean solveUncached(int[][] grid) {
+        if (parallel != null || racers > 1) return solveOnPool(grid);
+        prepare();
+        if (metrics == null) return engine.solve(grid);
+
+        // The grid is solved in place, so keep the givens; they only become text
+        // if this turns out to be the slowest solve
+        int[][] puzzle = copyGivens(grid);
+        long start = System.nanoTime();
+        boolean solved = engine.solve(grid);
+        metrics.record(engine, System.nanoTime() - start, solved, () -> SolverMetrics.describe(puzzle));
+        return solved;
+    }
+
+    // Parallel or raced solve, under the same cancel flag, time budget and
+    // metrics as an engine solve
+    private boolean solveOnPool(int[][] grid) {
+        ParallelSolver pool = parallel != null ? parallel : racePool;
+        preparePool(pool);
+        int[][] puzzle = metrics != null ? copyGivens(grid) : null;
+        long start = System.nanoTime();
+        boolean solved = pool == parallel ? parallel.solve(grid) : racePool.race(grid, random.nextLong(), racers);
+        if (metrics != null) metrics.record(pool, System.nanoTime() - start, solved, () -> SolverMetrics.describe(puzzle));
+        return solved;
+    }
+
+    // Copies the grid into rows reused from solve to solve
+    private int[][] copyGivens(int[][] grid) {
+        if (givens == null || givens.length != grid.length) givens = new int[grid.length][];
+        for (int i = 0; i < grid.length; i++) {
+            if (givens[i] == null || givens[i].length != grid[i].length) givens[i] = new int[grid[i].length];
+            System.arraycopy(grid[i], 0, givens[i], 0, grid[i].length);
+        }
+        return givens;
+    }
+
+    // Bounded solve: stops with BUDGET_EXCEEDED once the options' timeout, deadline
+    // or node budget is hit. The grid is left untouched; a solution comes back in
+    // the result together with the search statistics gathered either way.
+    // Always runs the sequential engine, since only it enforces a node budget.
+    public SolveResult solve(int[][] grid, SolveOptions options) {
+        int[][] work = new int[grid.length][];
+        for (int i = 0; i < grid.length; i++) work[i] = grid[i].clone();
+
+        engineStatus = null;
+        lastPool = null;
+        long start = System.nanoTime();
+        options.applyTo(engine, start);
+        boolean solved = store != null && store.lookup(work)
+                || (cache != null ? cache.solve(work, this::solveBounded) : solveBounded(work));
+        long elapsed = System.nanoTime() - start;
+
+        if (engineStatus == null) {
+            return new SolveResult(SolveResult.Status.SOLVED, work, 0, 0, 0, 0, elapsed);
         }
-        for (int r = 0; r < SIZE; r += SUBGRID) {
-            for (int c = 0; c < SIZE; c += SUBGRID) {
-                if (!isValidSubgrid(grid, r, c)) return false;
-            }
+        if (metrics != null) metrics.record(engine, elapsed, solved, () -> SolverMetrics.describe(grid));
+        return SolveResult.of(engineStatus, solved ? work : null, engine, elapsed);
+    }
+
+    private boolean solveBounded(int[][] grid) {
+        if (!engine.load(grid)) {
+            engineStatus = SolveResult.Status.UNSOLVABLE;
+            return false;
+        }
+        boolean solved = engine.solve();
+        if (solved) {
+            engine.store(grid);
+            engineStatus = SolveResult.Status.SOLVED;
+        } else if (engine.isBudgetExceeded()) {
+            engineStatus = SolveResult.Status.BUDGET_EXCEEDED;
+        } else if (engine.isAborted()) {
+            engineStatus = SolveResult.Status.CANCELLED;
+        } else {
+            engineStatus = SolveResult.Status.UNSOLVABLE;
+        }
+        return solved;
+    }
+
+    // Asks a solve running on another thread to give up; it then returns false.
+    // The request stands until resetCancel(), so it also stops a solve that
+    // was handed to a worker but has not started yet.
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    // Withdraws an earlier cancel(). Call it on the thread that calls cancel()
+    // (e.g. the event thread) before handing out the next solve, not from the
+    // solving thread, where it could swallow a cancel() made in between.
+    public void resetCancel() {
+        cancelled.set(false);
+    }
+
+    // True if the last solve gave up (cancelled or over its time budget) rather than proving no solution
+    public boolean wasAborted() {
+        return lastPool != null ? lastPool.isAborted() : engine.isAborted();
+    }
+
+    // Wall-clock limit per solve; 0 means unlimited
+    public void setTimeBudget(long millis) {
+        timeBudgetMillis = millis;
+    }
+
+    public long getProgressNodes() {
+        return engine.getProgressNodes();
+    }
+
+    public int getProgressDepth() {
+        return engine.getProgressDepth();
+    }
+
+    public boolean solve(Board board) {
+        if (parallel != null || racers > 1 || store != null || cache != null || metrics != null) {
+            int[][] grid = board.toGrid();
+            if (!solve(grid)) return false;
+            board.copyFrom(Board.fromGrid(grid));
+            return true;
         }
-        return true;
-    }
-    
-    private boolean backtrack(int[][] grid, int row, int col) {
-        if (row == SIZE) return true;
-        int nextRow = (col == SIZE - 1) ? row + 1 : row;
-        int nextCol = (col == SIZE - 1) ? 0 : col + 1;
-
-        if (grid[row][col] != 0) return backtrack(grid, nextRow, nextCol);
-
-        for (int num = 1; num <= 9; num++) {
-            if (isValid(grid, row, col, num)) {
-                grid[row][col] = num;
-                if (backtrack(grid, nextRow, nextCol)) return true;
-                grid[row][col] = 0;
-            }
+        prepare();
+        return engine.solve(board);
+    }
+
+    // Re-arms the time budget before each engine solve (cancellation is the
+    // caller's, see resetCancel)
+    private void prepare() {
+        lastPool = null;
+        engine.clearNodeBudget();
+        if (timeBudgetMillis > 0) {
+            engine.setDeadline(System.nanoTime() + timeBudgetMillis * 1_000_000);
+        } else {
+            engine.clearDeadline();
         }
-        return false;
     }
 
-    private boolean isValid(int[][] grid, int row, int col, int num) {
-        for (int i = 0; i < SIZE; i++) {
-            if (grid[row][i] == num || grid[i][col] == num) return false;
+    private void preparePool(ParallelSolver pool) {
+        lastPool = pool;
+        if (timeBudgetMillis > 0) {
+            pool.setDeadline(System.nanoTime() + timeBudgetMillis * 1_000_000);
+        } else {
+            pool.clearDeadline();
         }
-        int sr = (row / SUBGRID) * SUBGRID;
-        int sc = (col / SUBGRID) * SUBGRID;
-        for (int i = sr; i < sr + SUBGRID; i++) {
-            for (int j = sc; j < sc + SUBGRID; j++) {
-                if (grid[i][j] == num) return false;
-            }
+    }
+
+    // Counts solutions up to the limit (2 is enough to test uniqueness)
+    public long countSolutions(int[][] grid, long limit) {
+        if (parallel != null) {
+            preparePool(parallel);
+            return parallel.countSolutions(grid, limit);
         }
-        return true;
+        prepare();
+        return engine.load(grid) ? engine.countSolutions(limit) : 0;
+    }
+
+    // Bounded count; if wasAborted() afterwards, the count is only a lower bound
+    public long countSolutions(int[][] grid, long limit, SolveOptions options) {
+        lastPool = null;
+        options.applyTo(engine, System.nanoTime());
+        return engine.load(grid) ? engine.countSolutions(limit) : 0;
+    }
+
+    // Every solution of the grid, found lazily as the stream is consumed; call
+    // parallel() on it to spread the search over the common pool
+    public Stream<int[][]> solutions(int[][] grid) {
+        return StreamSupport.stream(new SolutionEnumerator(spec, grid), false);
+    }
+
+    // Opt-in fork/join search across all cores, for single hard puzzles
+    public void setParallel(boolean enabled) {
+        parallel = enabled ? new ParallelSolver(spec) : null;
+        if (parallel != null) parallel.setStopFlag(cancelled);
+    }
+
+    // Answers repeated (or symmetric) 9x9 puzzles from a cache that may be shared; null turns it off
+    public void setCache(SolutionCache cache) {
+        this.cache = cache;
+    }
+
+    public SolutionCache getCache() {
+        return cache;
     }
 
-    private boolean isValidRow(int[][] grid, int row) {
-        return new HashSet<Integer>() {{
-            for (int n : grid[row]) add(n);
-        }}.size() == 9;
+    // Answers 9x9 puzzles (or symmetric copies) already in a persistent store
+    // before searching; null turns it off. The store is only read.
+    public void setStore(PuzzleStore store) {
+        this.store = store;
     }
 
-    private boolean isValidColumn(int[][] grid, int col) {
-        HashSet<Integer> set = new HashSet<>();
-        for (int i = 0; i < SIZE; i++) set.add(grid[i][col]);
-        return set.size() == 9;
+    public PuzzleStore getStore() {
+        return store;
+    }
+
+    // Records search statistics of every engine solve into shared metrics; null turns it off
+    public void setMetrics(SolverMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public void setStrategy(BitmaskSolver.Strategy strategy) {
+        engine.setStrategy(strategy);
+    }
+
+    // Seeds the RESTARTS strategy and the racers, for reproducible runs
+    public void setSeed(long seed) {
+        random = new SplittableRandom(seed);
+        engine.setRandom(random.split());
+    }
+
+    // Races this many randomized restart searches on the common pool per solve
+    // and keeps the first answer; 0 or 1 turns racing off
+    public void setRacers(int racers) {
+        this.racers = racers;
+        racePool = racers > 1 ? new ParallelSolver(spec) : null;
+        if (racePool != null) racePool.setStopFlag(cancelled);
+    }
+
+    // Naked-single scan in SIMD lanes when jdk.incubator.vector is available (see CandidateKernel)
+    public void setVectorized(boolean enabled) {
+        engine.setVectorized(enabled);
+    }
+
+    // Search nodes visited by the last solve, for comparing strategies
+    public long getNodesVisited() {
+        return engine.getNodes();
+    }
+
+    // Full check of a finished grid; see validate() for which cells conflict
+    public boolean isValidSolution(int[][] grid) {
+        return validator.validate(grid).isSolved();
     }
 
-    private boolean isValidSubgrid(int[][] grid, int r, int c) {
-        HashSet<Integer> set = new HashSet<>();
-        for (int i = r; i < r + SUBGRID; i++)
-            for (int j = c; j < c + SUBGRID; j++)
-                set.add(grid[i][j]);
-        return set.size() == 9;
+    // Conflicting units and cells of a full or partial grid. The result is
+    // reused by the next call, and validating never allocates.
+    public GridValidator.Result validate(int[][] grid) {
+        return validator.validate(grid);
     }
 }
 
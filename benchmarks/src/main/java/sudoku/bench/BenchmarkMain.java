@@ -0,0 +1,37 @@
+package sudoku.bench;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Baseline Run
+// Runs the suite twice with the GC profiler attached: once for throughput in
+// ops/s, once sampling per-call latency in microseconds (p50/p90/p99/p99.9).
+// Results also go to JSON so runs can be diffed across engine changes.
+// Arguments, if any, are benchmark name patterns (default: the whole suite).
+public class BenchmarkMain {
+    public static void main(String[] args) throws RunnerException {
+        String[] patterns = args.length > 0 ? args : new String[] {"sudoku\\.bench\\..*"};
+
+        run(patterns, Mode.Throughput, TimeUnit.SECONDS, "throughput.json");
+        run(patterns, Mode.SampleTime, TimeUnit.MICROSECONDS, "latency.json");
+    }
+
+    private static void run(String[] patterns, Mode mode, TimeUnit unit, String resultFile) throws RunnerException {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .mode(mode)
+                .timeUnit(unit)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile);
+        for (String pattern : patterns) {
+            options.include(pattern);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,36 @@
+package sudoku.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.TimeUnit;
+
+// PuzzleGenerator.generateUnique from many threads at once. Each JMH thread
+// either owns a seeded generator (instance) or goes through the static API,
+// which hands every thread its own generator (perThread). Nothing is shared
+// either way, so ops/s should grow linearly with the thread count; run
+// GeneratorScaling to measure that from 1 thread up to one per core.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentGeneratorBenchmark {
+    private Object generator;
+
+    @Setup
+    public void setup(ThreadParams thread) {
+        generator = Engine.newGenerator(thread.getThreadIndex());
+    }
+
+    @Benchmark
+    public int[][] instance() {
+        return Engine.nextUnique(generator);
+    }
+
+    @Benchmark
+    public int[][] perThread() {
+        return Engine.generateUnique();
+    }
+}
@@ -0,0 +1,63 @@
+package sudoku.bench;
+
+// Benchmark Corpora
+// Fixed 9x9 puzzles (one-line form, '.' or '0' for blanks) so results are
+// comparable across runs and engine changes. Every puzzle has exactly one
+// solution.
+public enum Corpus {
+    // Solvable by singles alone
+    EASY(
+            "003020600900305001001806400008102900700000008006708200002609500800203009005010300",
+            "200080300060070084030500209000105408000000000402706000301007040720040060004010003"),
+
+    // Well-known hard puzzles that need guessing: Inkala's 2012 puzzle,
+    // Easter Monster, and the hardest of Norvig's random set
+    HARD(
+            "800000000003600000070090200050007000000045700000100030001000068008500010090000400",
+            "1.......2.9.4...5...6...7...5.9.3.......7.......85..4.7.....6...3...9.8...2.....1",
+            "85...24..72......9..4.........1.7..23.5...9...4...........8..7..17..........36.4."),
+
+    // Minimum-clue puzzles from the 17-clue catalogue
+    SEVENTEEN(
+            "000000010400000000020000000000050407008000300001090000300400200050100000000806000",
+            "000000010400000000020000000000050604008000300001090000300400200050100000000807000",
+            "000000012000035000000600070700000300000400800100000000000120000080000040050000600",
+            "000000012003600000000007000410020000000500300700000600280000040000300500000000000",
+            "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......",
+            "52...6.........7.13...........4..8..6......5...........418.........3..2...87....."),
+
+    // Built to defeat row-major brute force: the first row's solution is
+    // 987654321, so a backtracker trying 1..9 in order exhausts nearly every
+    // branch before reaching it (about 11 s per solve for Sudoku.sudokuSolver)
+    ANTI_BACKTRACKING(
+            "..............3.85..1.2.......5.7.....4...1...9.......5......73..2.1........4...9");
+
+    private final String[] puzzles;
+
+    Corpus(String... puzzles) {
+        this.puzzles = puzzles;
+    }
+
+    int[][][] grids() {
+        int[][][] grids = new int[puzzles.length][][];
+        for (int i = 0; i < puzzles.length; i++) {
+            grids[i] = parse(puzzles[i]);
+        }
+        return grids;
+    }
+
+    static int[][] parse(String puzzle) {
+        int[][] grid = new int[9][9];
+        for (int cell = 0; cell < 81; cell++) {
+            char c = puzzle.charAt(cell);
+            grid[cell / 9][cell % 9] = c == '.' ? 0 : c - '0';
+        }
+        return grid;
+    }
+
+    static void copy(int[][] from, int[][] to) {
+        for (int row = 0; row < from.length; row++) {
+            System.arraycopy(from[row], 0, to[row], 0, from[row].length);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package sudoku.bench;
+
+import java.lang.invoke.*;
+
+// Application Entry Points
+// The application classes live in the default package, which code in a named
+// package cannot import, and JMH will not generate benchmarks in the default
+// package. Both end up in the same unnamed module, so privateLookupIn can
+// reach them; the handles are static final and typed exactly, so the JIT
+// inlines the calls as if they were direct.
+final class Engine {
+    private static final MethodHandle NEW_SOLVER;
+    private static final MethodHandle SOLVE;
+    private static final MethodHandle SET_VECTORIZED;
+    private static final MethodHandle IS_VALID_SOLUTION;
+    private static final MethodHandle COUNT_SOLUTIONS;
+    private static final MethodHandle NEW_DANCING_LINKS;
+    private static final MethodHandle DANCING_LINKS_COUNT;
+    private static final MethodHandle NAIVE_SOLVE;
+    private static final MethodHandle GENERATE;
+    private static final MethodHandle GENERATE_UNIQUE;
+    private static final MethodHandle NEW_GENERATOR;
+    private static final MethodHandle NEXT_UNIQUE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            Class<?> solver = Class.forName("SudokuSolver");
+            Class<?> sudoku = Class.forName("Sudoku");
+            Class<?> generator = Class.forName("PuzzleGenerator");
+            MethodHandles.Lookup solverLookup = MethodHandles.privateLookupIn(solver, lookup);
+            MethodHandles.Lookup sudokuLookup = MethodHandles.privateLookupIn(sudoku, lookup);
+            MethodHandles.Lookup generatorLookup = MethodHandles.privateLookupIn(generator, lookup);
+
+            MethodType check = MethodType.methodType(boolean.class, int[][].class);
+            NEW_SOLVER = solverLookup.findConstructor(solver, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            SOLVE = solverLookup.findVirtual(solver, "solve", check)
+                    .asType(MethodType.methodType(boolean.class, Object.class, int[][].class));
+            SET_VECTORIZED = solverLookup.findVirtual(solver, "setVectorized", MethodType.methodType(void.class, boolean.class))
+                    .asType(MethodType.methodType(void.class, Object.class, boolean.class));
+            IS_VALID_SOLUTION = solverLookup.findVirtual(solver, "isValidSolution", check)
+                    .asType(MethodType.methodType(boolean.class, Object.class, int[][].class));
+            COUNT_SOLUTIONS = solverLookup.findVirtual(solver, "countSolutions",
+                            MethodType.methodType(long.class, int[][].class, long.class))
+                    .asType(MethodType.methodType(long.class, Object.class, int[][].class, long.class));
+            Class<?> dancingLinks = Class.forName("DancingLinksSolver");
+            MethodHandles.Lookup dancingLinksLookup = MethodHandles.privateLookupIn(dancingLinks, lookup);
+            NEW_DANCING_LINKS = dancingLinksLookup.findConstructor(dancingLinks, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            DANCING_LINKS_COUNT = dancingLinksLookup.findVirtual(dancingLinks, "countSolutions",
+                            MethodType.methodType(int.class, int[][].class, int.class))
+                    .asType(MethodType.methodType(int.class, Object.class, int[][].class, int.class));
+            NAIVE_SOLVE = sudokuLookup.findStatic(sudoku, "sudokuSolver",
+                    MethodType.methodType(boolean.class, int[][].class, int.class, int.class));
+            GENERATE = generatorLookup.findStatic(generator, "generate", MethodType.methodType(int[][].class));
+            GENERATE_UNIQUE = generatorLookup.findStatic(generator, "generateUnique", MethodType.methodType(int[][].class));
+            Class<?> spec = Class.forName("GridSpec");
+            Object classic = MethodHandles.privateLookupIn(spec, lookup).findStaticGetter(spec, "CLASSIC", spec).invoke();
+            NEW_GENERATOR = MethodHandles.insertArguments(
+                    generatorLookup.findConstructor(generator, MethodType.methodType(void.class, spec, long.class)), 0, classic)
+                    .asType(MethodType.methodType(Object.class, long.class));
+            NEXT_UNIQUE = generatorLookup.findVirtual(generator, "nextUnique", MethodType.methodType(int[][].class))
+                    .asType(MethodType.methodType(int[][].class, Object.class));
+        } catch (Throwable e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Engine() {
+    }
+
+    // A new SudokuSolver (9x9)
+    static Object newSolver() {
+        try {
+            return (Object) NEW_SOLVER.invokeExact();
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    // SudokuSolver.solve
+    static boolean solve(Object solver, int[][] grid) {
+        try {
+            return (boolean) SOLVE.invokeExact(solver, grid);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    // SudokuSolver.setVectorized
+    static void setVectorized(Object solver, boolean enabled) {
+        try {
+            SET_VECTORIZED.invokeExact(solver, enabled);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    // SudokuSolver.isValidSolution
+    static boolean isValidSolution(Object solver, int[][] grid) {
+        try {
+            return (boolean) IS_VALID_SOLUTION.invokeExact(solver, grid);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    // SudokuSolver.countSolutions
+    static long countSolutions(Object solver, int[][] grid, long limit) {
+        try {
+            return (long) COUNT_SOLUTIONS.invokeExact(solver, grid, limit);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    // A new DancingLinksSolver
+    static Object newDancingLinks() {
+        try {
+            return (Object) NEW_DANCING_LINKS.invokeExact();
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    // DancingLinksSolver.countSolutions
+    static int dancingLinksCount(Object solver, int[][] grid, int limit) {
+        try {
+            return (int) DANCING_LINKS_COUNT.invokeExact(solver, grid, limit);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    // Sudoku.sudokuSolver, the original recursive backtracker
+    static boolean naiveSolve(int[][] grid) {
+        try {
+            return (boolean) NAIVE_SOLVE.invokeExact(grid, 0, 0);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    // PuzzleGenerator.generate
+    static int[][] generate() {
+        try {
+            return (int[][]) GENERATE.invokeExact();
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    // PuzzleGenerator.generateUnique
+    static int[][] generateUnique() {
+        try {
+            return (int[][]) GENERATE_UNIQUE.invokeExact();
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    // new PuzzleGenerator(GridSpec.CLASSIC, seed)
+    static Object newGenerator(long seed) {
+        try {
+            return (Object) NEW_GENERATOR.invokeExact(seed);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    // PuzzleGenerator.nextUnique
+    static int[][] nextUnique(Object generator) {
+        try {
+            return (int[][]) NEXT_UNIQUE.invokeExact(generator);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) return (RuntimeException) e;
+        if (e instanceof Error) throw (Error) e;
+        return new IllegalStateException(e);
+    }
+}
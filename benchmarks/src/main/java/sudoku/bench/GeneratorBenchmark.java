@@ -0,0 +1,25 @@
+package sudoku.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// PuzzleGenerator: a random solved grid with cells blanked (generate), and the
+// minimal unique-solution puzzle built from it (generateUnique)
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class GeneratorBenchmark {
+    @Benchmark
+    public int[][] generate() {
+        return Engine.generate();
+    }
+
+    @Benchmark
+    public int[][] generateUnique() {
+        return Engine.generateUnique();
+    }
+}
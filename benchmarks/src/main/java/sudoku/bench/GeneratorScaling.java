@@ -0,0 +1,40 @@
+package sudoku.bench;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.*;
+
+// Generator Scaling Run
+// Runs ConcurrentGeneratorBenchmark at 1, 2, 4, ... threads up to the core
+// count and prints throughput next to the ideal linear speedup, e.g.
+//   java -cp benchmarks/target/benchmarks.jar sudoku.bench.GeneratorScaling
+public class GeneratorScaling {
+    public static void main(String[] args) throws RunnerException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < cores; threads *= 2) counts.add(threads);
+        counts.add(cores);
+
+        Map<String, Double> single = new HashMap<>();
+        StringBuilder table = new StringBuilder(String.format("%-10s %8s %12s %9s %11s%n",
+                "benchmark", "threads", "ops/s", "speedup", "efficiency"));
+        for (int threads : counts) {
+            Collection<RunResult> results = new Runner(new OptionsBuilder()
+                    .include(ConcurrentGeneratorBenchmark.class.getName())
+                    .threads(threads)
+                    .build()).run();
+            for (RunResult result : results) {
+                String label = result.getParams().getBenchmark().replaceAll(".*\\.", "");
+                double score = result.getPrimaryResult().getScore();
+                single.putIfAbsent(label, score);
+                double speedup = score / single.get(label);
+                table.append(String.format(Locale.ROOT, "%-10s %8d %12.1f %8.2fx %10.0f%%%n",
+                        label, threads, score, speedup, 100 * speedup / threads));
+            }
+        }
+        System.out.print(table);
+    }
+}
@@ -0,0 +1,36 @@
+package sudoku.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Sudoku.sudokuSolver, the original row-major backtracker, as the reference
+// the engine is measured against. It takes seconds per puzzle on SEVENTEEN and
+// ANTI_BACKTRACKING, so those run single-shot and only when asked for:
+//   java -jar benchmarks.jar NaiveSolverBenchmark -p corpus=ANTI_BACKTRACKING -bm ss
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NaiveSolverBenchmark {
+    @Param({"EASY", "HARD"})
+    public Corpus corpus;
+
+    private int[][][] puzzles;
+    private final int[][] grid = new int[9][9];
+    private int next;
+
+    @Setup
+    public void setup() {
+        puzzles = corpus.grids();
+    }
+
+    @Benchmark
+    public boolean solve() {
+        Corpus.copy(puzzles[next], grid);
+        next = next + 1 == puzzles.length ? 0 : next + 1;
+        return Engine.naiveSolve(grid);
+    }
+}
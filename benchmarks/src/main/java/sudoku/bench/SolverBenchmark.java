@@ -0,0 +1,42 @@
+package sudoku.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// SudokuSolver.solve over each corpus. Each invocation solves the next puzzle
+// of the corpus from a fresh copy; the copy (81 ints) is part of the measurement.
+// vectorized=true runs the naked-single scan through CandidateKernel; the forks
+// get the incubator module so that is the SIMD kernel, not the scalar fallback.
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class SolverBenchmark {
+    @Param({"EASY", "HARD", "SEVENTEEN", "ANTI_BACKTRACKING"})
+    public Corpus corpus;
+
+    @Param({"false", "true"})
+    public boolean vectorized;
+
+    private int[][][] puzzles;
+    private final int[][] grid = new int[9][9];
+    private Object solver;
+    private int next;
+
+    @Setup
+    public void setup() {
+        puzzles = corpus.grids();
+        solver = Engine.newSolver();
+        Engine.setVectorized(solver, vectorized);
+    }
+
+    @Benchmark
+    public boolean solve() {
+        Corpus.copy(puzzles[next], grid);
+        next = next + 1 == puzzles.length ? 0 : next + 1;
+        return Engine.solve(solver, grid);
+    }
+}
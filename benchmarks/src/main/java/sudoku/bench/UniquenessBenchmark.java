@@ -0,0 +1,42 @@
+package sudoku.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Count-to-2 uniqueness checks, the test PuzzleGenerator runs after every clue
+// it removes, on the bitmask engine (SudokuSolver.countSolutions) and on
+// DancingLinksSolver. The generator keeps whichever is faster.
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class UniquenessBenchmark {
+    @Param({"EASY", "HARD", "SEVENTEEN"})
+    public Corpus corpus;
+
+    @Param({"bitmask", "dancingLinks"})
+    public String backend;
+
+    private int[][][] puzzles;
+    private Object solver;
+    private boolean dancingLinks;
+    private int next;
+
+    @Setup
+    public void setup() {
+        puzzles = corpus.grids();
+        dancingLinks = backend.equals("dancingLinks");
+        solver = dancingLinks ? Engine.newDancingLinks() : Engine.newSolver();
+    }
+
+    // Neither backend changes the grid, so no copy is needed
+    @Benchmark
+    public long countToTwo() {
+        int[][] grid = puzzles[next];
+        next = next + 1 == puzzles.length ? 0 : next + 1;
+        return dancingLinks ? Engine.dancingLinksCount(solver, grid, 2) : Engine.countSolutions(solver, grid, 2);
+    }
+}
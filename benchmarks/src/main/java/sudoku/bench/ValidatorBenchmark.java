@@ -0,0 +1,40 @@
+package sudoku.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// SudokuSolver.isValidSolution on a correct grid (every unit scanned) and on
+// a grid with one swapped cell. Run with -prof gc: the allocation rate
+// should be ~0 B/op.
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ValidatorBenchmark {
+    private Object solver;
+    private int[][] solved;
+    private int[][] broken;
+
+    @Setup
+    public void setup() {
+        solver = Engine.newSolver();
+        solved = Corpus.HARD.grids()[0];
+        if (!Engine.solve(solver, solved)) throw new IllegalStateException("Corpus puzzle did not solve");
+        broken = new int[9][9];
+        Corpus.copy(solved, broken);
+        broken[0][0] = broken[0][1];
+    }
+
+    @Benchmark
+    public boolean validSolution() {
+        return Engine.isValidSolution(solver, solved);
+    }
+
+    @Benchmark
+    public boolean invalidSolution() {
+        return Engine.isValidSolution(solver, broken);
+    }
+}
@@ -0,0 +1,65 @@
+import jdk.incubator.vector.*;
+
+// Vector Candidate Kernel
+// CandidateKernel in SIMD lanes: per block of cells, gathers the row, column
+// and box masks through the spec's cell->unit index maps, ORs them, and picks
+// out empty cells with zero or one candidate with lane-wise compares. With
+// AVX-512 a 9x9 board is five 16-lane blocks plus one scalar cell; with AVX2
+// it is ten 8-lane blocks plus one.
+//
+// Needs the incubator module at compile and run time, which is why it lives
+// outside the main source folder:
+//   javac --add-modules jdk.incubator.vector -cp <classes> -d <classes> vector/VectorCandidateKernel.java
+//   java --add-modules jdk.incubator.vector ...
+// The benchmarks module builds and runs it this way.
+final class VectorCandidateKernel extends CandidateKernel {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private final int loopBound;
+
+    VectorCandidateKernel(GridSpec spec) {
+        super(spec);
+        if (SPECIES.length() < 8) {
+            // Gathers narrower than 256 bits don't pay (and crash C2 on AVX-512 in
+            // JDK 21.0.1); CandidateKernel.forSpec() takes this as "unavailable"
+            throw new UnsupportedOperationException(SPECIES + " is narrower than 8 lanes");
+        }
+        this.loopBound = SPECIES.loopBound(cellCount);
+    }
+
+    @Override
+    int scan(int[] cells, int[] rowMask, int[] colMask, int[] boxMask, int[] candidates) {
+        int singles = 0;
+        int cell = 0;
+        for (; cell < loopBound; cell += SPECIES.length()) {
+            // Indexed gathers, so the board may have more units than there are lanes
+            IntVector row = IntVector.fromArray(SPECIES, rowMask, 0, rowOf, cell);
+            IntVector col = IntVector.fromArray(SPECIES, colMask, 0, colOf, cell);
+            IntVector box = IntVector.fromArray(SPECIES, boxMask, 0, boxOf, cell);
+            VectorMask<Integer> empty = IntVector.fromArray(SPECIES, cells, cell).compare(VectorOperators.EQ, 0);
+
+            IntVector mask = row.or(col).or(box).not().and(allDigits).blend(0, empty.not());
+            mask.intoArray(candidates, cell);
+
+            if (mask.compare(VectorOperators.EQ, 0).and(empty).anyTrue()) return -1;
+            // x & (x - 1) == 0 also holds for filled lanes (x == 0), hence the and(empty)
+            singles += mask.and(mask.sub(1)).compare(VectorOperators.EQ, 0).and(empty).trueCount();
+        }
+        for (; cell < cellCount; cell++) {
+            if (cells[cell] != 0) {
+                candidates[cell] = 0;
+                continue;
+            }
+            int mask = ~(rowMask[rowOf[cell]] | colMask[colOf[cell]] | boxMask[boxOf[cell]]) & allDigits;
+            if (mask == 0) return -1;
+            candidates[cell] = mask;
+            if ((mask & (mask - 1)) == 0) singles++;
+        }
+        return singles;
+    }
+
+    @Override
+    String name() {
+        return "vector-" + SPECIES.length() + "x32";
+    }
+}